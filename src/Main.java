@@ -19,7 +19,7 @@ public class Main {
 		} else {
 			Game game = new Game(Difficulty.HARD, 8, 8);
 			Simulation simulation = new Simulation(game);
-			simulation.run(1000);
+			simulation.run(1000, Runtime.getRuntime().availableProcessors());
 		}
 	}
 }
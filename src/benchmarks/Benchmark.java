@@ -0,0 +1,254 @@
+package src.benchmarks;
+
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+import src.classes.Game;
+import src.classes.GameState;
+import src.classes.Minimax;
+import src.classes.Perft;
+import src.classes.TranspositionTable;
+import src.classes.Game.Difficulty;
+import src.classes.GameState.Player;
+import src.classes.Minimax.Parallelism;
+import src.classes.heuristic.Heuristic1;
+import src.classes.heuristic.Heuristic2;
+
+
+public class Benchmark {
+	private static final int ROWS = 8;
+	private static final int COLUMNS = 8;
+	private static final int POSITIONS = 16; // Positions of each phase of the game
+	private static final int[] PHASE_PLIES = { 0, 12, 24 }; // Random moves played to reach each phase
+	private static final String[] PHASE_NAMES = { "early", "middle", "late" };
+	private static final int PERFT_DEPTH = 5;
+	private static final int ITERATIONS = 5; // Measurements of each benchmark
+
+	private static volatile long sink; // Keeps the JIT from removing the benchmarked code
+
+	private double seconds;
+	private String filter;
+
+
+	public Benchmark(double seconds, String filter) {
+		this.seconds = seconds;
+		this.filter = filter;
+	}
+
+
+	/**
+	 * Builds the positions of a phase of the game: every position starts
+	 * from a seeded initial game state and plays the given number of random
+	 * moves, drawn from the same seed. The positions are the same on every
+	 * run.
+	 *
+	 * @param game  The game.
+	 * @param plies The number of random moves to play.
+	 * @return the positions of the phase.
+	 */
+	private static GameState[] build_positions(Game game, int plies) {
+		GameState[] positions = new GameState[POSITIONS];
+
+		for (int seed = 0; seed < POSITIONS; seed++) {
+			Random random = new Random(seed);
+			GameState game_state = game.build_initial_game_state(seed);
+			Player player = Player.RED;
+			int[] tiles = new int[8];
+
+			for (int ply = 0; ply < plies; ply++) {
+				int count = game.get_available_tiles(game_state.get_square(player), game_state, tiles);
+
+				if (count > 0) {
+					GameState next_state = game_state.copy();
+
+					next_state.make_move(player, tiles[random.nextInt(count)]);
+
+					if (game.is_game_finished(next_state)) // The benchmarks need a position with moves left
+						break;
+
+					game_state = next_state;
+				}
+
+				player = player == Player.GREEN ? Player.RED : Player.GREEN;
+			}
+
+			positions[seed] = game_state.copy();
+		}
+
+		return positions;
+	}
+
+	/**
+	 * Runs an operation over the positions, round after round, for about the
+	 * given time.
+	 *
+	 * @param positions The positions.
+	 * @param operation The operation, which returns a count (such as nodes)
+	 *                  or any value that depends on its work.
+	 * @param seconds   The time to run for.
+	 * @return the number of operations, the elapsed time in nanoseconds and
+	 *         the sum of the returned values.
+	 */
+	private static long[] run(GameState[] positions, ToLongFunction <GameState> operation, double seconds) {
+		long duration = (long) (seconds * 1e9);
+		long operations = 0;
+		long total = 0;
+		long start = System.nanoTime();
+		long elapsed;
+
+		do {
+			for (GameState game_state : positions)
+				total += operation.applyAsLong(game_state);
+
+			operations += positions.length;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < duration);
+
+		sink += total;
+
+		return new long[] { operations, elapsed, total };
+	}
+
+	/**
+	 * Warms up an operation, measures it over a few iterations and prints
+	 * its throughput, the mean and standard deviation of its time per
+	 * operation and, for searches, its nodes per second. Benchmarks whose
+	 * name does not contain the filter are skipped.
+	 *
+	 * @param name      The name of the benchmark.
+	 * @param phase     The name of the phase of the positions.
+	 * @param positions The positions.
+	 * @param operation The operation.
+	 * @param search    Whether the operation returns a number of nodes.
+	 */
+	private void measure(String name, String phase, GameState[] positions, ToLongFunction <GameState> operation,
+			boolean search) {
+		if (!name.contains(filter))
+			return;
+
+		run(positions, operation, seconds / 2);
+
+		long operations = 0;
+		long elapsed = 0;
+		long total = 0;
+		double[] times = new double[ITERATIONS];
+		double mean = 0;
+		double squares = 0;
+
+		for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+			long[] result = run(positions, operation, seconds / ITERATIONS);
+
+			operations += result[0];
+			elapsed += result[1];
+			total += result[2];
+			times[iteration] = (double) result[1] / result[0];
+			mean += times[iteration] / ITERATIONS;
+		}
+
+		for (double time : times)
+			squares += (time - mean) * (time - mean);
+
+		System.out.printf("%-44s %-7s %14.0f %12.1f %9.1f %14s%n", name, phase, operations / (elapsed / 1e9), mean,
+				Math.sqrt(squares / (ITERATIONS - 1)), search ? String.format("%.0f", total / (elapsed / 1e9)) : "-");
+	}
+
+	/**
+	 * Measures the search of an engine, counting its nodes, with its
+	 * transposition table cleared before every search.
+	 *
+	 * @param name      The name of the benchmark.
+	 * @param phase     The name of the phase of the positions.
+	 * @param positions The positions.
+	 * @param minimax   The engine.
+	 */
+	private void measure_search(String name, String phase, GameState[] positions, Minimax minimax) {
+		measure(name, phase, positions, game_state -> {
+			if (minimax.get_transposition_table() != null)
+				minimax.get_transposition_table().clear();
+
+			minimax.run(game_state);
+			return minimax.get_nodes();
+		}, true);
+	}
+
+	/**
+	 * Runs every benchmark whose name contains the filter, on every phase of
+	 * the game.
+	 *
+	 * @param threads The largest number of threads for the parallel search
+	 *                benchmarks.
+	 */
+	public void run_all(int threads) {
+		Game game = new Game(Difficulty.HARD, ROWS, COLUMNS);
+		Perft perft = new Perft(game);
+		int[] tiles = new int[8];
+
+		System.out.printf("%-44s %-7s %14s %12s %9s %14s%n", "Benchmark", "Phase", "ops/s", "ns/op", "stdev",
+				"nodes/s");
+
+		for (int phase = 0; phase < PHASE_PLIES.length; phase++) {
+			GameState[] positions = build_positions(game, PHASE_PLIES[phase]);
+			String phase_name = PHASE_NAMES[phase];
+			Heuristic1 heuristic1 = new Heuristic1(Player.GREEN, game);
+			Heuristic2 heuristic2 = new Heuristic2(Player.GREEN, game);
+
+			measure("Game.get_available_tiles(list)", phase_name, positions,
+					game_state -> game.get_available_tiles(game_state.get_player(Player.GREEN), game_state).size(),
+					false);
+			measure("Game.get_available_tiles(array)", phase_name, positions,
+					game_state -> game.get_available_tiles(game_state.get_square(Player.GREEN), game_state, tiles),
+					false);
+			measure("Perft.count(" + PERFT_DEPTH + ")", phase_name, positions,
+					game_state -> perft.count(game_state, Player.GREEN, PERFT_DEPTH), true);
+			measure("GameState.copy", phase_name, positions, game_state -> game_state.copy().get_hash(), false);
+			measure("Heuristic1.get_score", phase_name, positions,
+					game_state -> (long) heuristic1.get_score(game_state), false);
+			measure("Heuristic2.get_score", phase_name, positions,
+					game_state -> (long) heuristic2.get_score(game_state), false);
+
+			for (Difficulty difficulty : Difficulty.values()) {
+				Game difficulty_game = new Game(difficulty, ROWS, COLUMNS);
+
+				measure_search("Minimax.run(" + difficulty + ")", phase_name, positions,
+						new Minimax(new Heuristic1(Player.GREEN, difficulty_game), difficulty_game, Player.GREEN));
+			}
+
+			Minimax ordered_minimax = new Minimax(heuristic1, game, Player.GREEN);
+
+			ordered_minimax.set_move_ordering(true);
+			measure_search("Minimax.run(HARD, ordered)", phase_name, positions, ordered_minimax);
+
+			for (Parallelism parallelism : Parallelism.values())
+				for (int thread_count = 2; thread_count <= threads; thread_count *= 2) {
+					Minimax minimax = new Minimax(heuristic1, game, Player.GREEN);
+
+					minimax.set_move_ordering(true);
+					minimax.set_threads(thread_count);
+					minimax.set_parallelism(parallelism);
+
+					if (parallelism == Parallelism.LAZY_SMP) // The threads only share work through the table
+						minimax.set_transposition_table(new TranspositionTable(1));
+
+					measure_search("Minimax.run(HARD, ordered, " + parallelism + " x" + thread_count + ")", phase_name,
+							positions, minimax);
+				}
+		}
+	}
+
+	/**
+	 * Runs the benchmarks.
+	 *
+	 * @param args The time to measure each benchmark, in seconds (1 by
+	 *             default), the largest number of threads of the parallel
+	 *             searches (the number of processors by default) and the text
+	 *             the names of the benchmarks to run contain (all by default).
+	 */
+	public static void main(String[] args) {
+		double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 1;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+		new Benchmark(seconds, args.length > 2 ? args[2] : "").run_all(threads);
+
+		System.exit(0); // The pools of the parallel searches keep their threads
+	}
+}
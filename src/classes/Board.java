@@ -0,0 +1,395 @@
+package src.classes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+import src.classes.GameState.Player;
+
+
+public class Board {
+	private static final Map <Long, Board> boards = new ConcurrentHashMap <>();
+
+	private int columns;
+	private int rows;
+	private int size;
+	private long mask;
+	private long[] knight_masks;
+	private int[][] knight_moves;
+	private int[] jump_shifts;
+	private long[] jump_sources;
+	private long[][] tile_keys;
+	private long[][] yoshi_keys;
+	private long[] turn_keys;
+	private int[][] symmetries;
+	private int[] inverse_symmetries;
+
+
+	private Board(int rows, int columns) {
+		if (rows <= 0 || columns <= 0 || rows * columns > Long.SIZE)
+			throw new IllegalArgumentException("Error: the board must have between 1 and 64 tiles");
+
+		this.rows = rows;
+		this.columns = columns;
+
+		size = rows * columns;
+		mask = size == Long.SIZE ? -1L : (1L << size) - 1;
+
+		build_knight_tables();
+		build_zobrist_keys();
+		build_symmetries();
+	}
+
+
+	/**
+	 * Precomputes the knight jumps of every tile, as a bitboard and as a list
+	 * of indices, and the shift and source mask of each of the 8 jumps.
+	 */
+	private void build_knight_tables() {
+		knight_masks = new long[size];
+		knight_moves = new int[size][];
+
+		int[] moves = new int[8];
+
+		for (int index = 0; index < size; index++) {
+			int x = index % columns;
+			int y = index / columns;
+			int count = 0;
+
+			/*
+			 * (x - 1,y - 2) -> |((x - 1) - x)| + |(y - 2) - y)| = 3
+			 * (x + 1,y - 2) -> |((x + 1) - x)| + |(y - 2) - y)| = 3
+			 * (x + 2,y - 1) -> |((x + 2) - x)| + |(y - 1) - y)| = 3
+			 * (x + 2,y + 1) -> |((x + 2) - x)| + |(y + 1) - y)| = 3
+			 * (x + 1,y + 2) -> |((x + 1) - x)| + |(y + 2) - y)| = 3
+			 * (x - 1,y + 2) -> |((x - 1) - x)| + |(y + 2) - y)| = 3
+			 * (x - 2,y + 1) -> |((x - 2) - x)| + |(y + 1) - y)| = 3
+			 * (x - 2,y - 1) -> |((x - 2) - x)| + |(y - 1) - y)| = 3
+			 */
+			for (int i = x - 2; i <= x + 2; i++)
+				for (int j = y - 2; j <= y + 2; j++)
+					if (Math.abs(i - x) + Math.abs(j - y) == 3 && is_in_board(i, j)) {
+						moves[count++] = get_index(i, j);
+						knight_masks[index] |= 1L << get_index(i, j);
+					}
+
+			knight_moves[index] = Arrays.copyOf(moves, count);
+		}
+
+		int[][] jumps = { { -1, -2 }, { 1, -2 }, { 2, -1 }, { 2, 1 }, { 1, 2 }, { -1, 2 }, { -2, 1 }, { -2, -1 } };
+
+		jump_shifts = new int[jumps.length];
+		jump_sources = new long[jumps.length];
+
+		for (int jump = 0; jump < jumps.length; jump++) {
+			jump_shifts[jump] = jumps[jump][1] * columns + jumps[jump][0];
+
+			for (int index = 0; index < size; index++)
+				if (is_in_board(index % columns + jumps[jump][0], index / columns + jumps[jump][1]))
+					jump_sources[jump] |= 1L << index;
+		}
+	}
+
+
+	/**
+	 * Draws the keys used to hash game states, for the painted tiles, the
+	 * Yoshis and the side to move, from a fixed seed.
+	 */
+	private void build_zobrist_keys() {
+		SplittableRandom random = new SplittableRandom(0x59_05_41L);
+		int players = Player.values().length;
+
+		tile_keys = new long[players][size];
+		yoshi_keys = new long[players][size];
+		turn_keys = new long[players];
+
+		for (int player = 0; player < players; player++) {
+			for (int index = 0; index < size; index++) {
+				tile_keys[player][index] = random.nextLong();
+				yoshi_keys[player][index] = random.nextLong();
+			}
+
+			turn_keys[player] = random.nextLong();
+		}
+	}
+
+
+	/**
+	 * Precomputes the tile each tile is mapped to by every symmetry of the
+	 * board: 4 on any board, 8 on a square one.
+	 */
+	private void build_symmetries() {
+		int count = rows == columns ? 8 : 4;
+		int last_column = columns - 1;
+		int last_row = rows - 1;
+
+		symmetries = new int[count][size];
+		inverse_symmetries = new int[count];
+
+		for (int index = 0; index < size; index++) {
+			int x = index % columns;
+			int y = index / columns;
+
+			symmetries[0][index] = index;
+			symmetries[1][index] = get_index(last_column - x, y);
+			symmetries[2][index] = get_index(x, last_row - y);
+			symmetries[3][index] = get_index(last_column - x, last_row - y);
+
+			if (count == 8) {
+				symmetries[4][index] = get_index(y, x);
+				symmetries[5][index] = get_index(last_row - y, x);
+				symmetries[6][index] = get_index(y, last_column - x);
+				symmetries[7][index] = get_index(last_row - y, last_column - x);
+			}
+		}
+
+		for (int symmetry = 0; symmetry < count; symmetry++)
+			for (int inverse = 0; inverse < count; inverse++) {
+				int index = 0;
+
+				while (index < size && symmetries[inverse][symmetries[symmetry][index]] == index)
+					index++;
+
+				if (index == size) {
+					inverse_symmetries[symmetry] = inverse;
+					break;
+				}
+			}
+	}
+
+
+	/**
+	 * Returns the board with the given dimensions. Boards are immutable, so
+	 * a single instance is shared by every game with the same dimensions.
+	 *
+	 * @param rows    The number of rows of the board.
+	 * @param columns The number of columns of the board.
+	 * @return the board with the given dimensions.
+	 */
+	public static Board get(int rows, int columns) {
+		return boards.computeIfAbsent(((long) rows << 32) | columns, key -> new Board(rows, columns));
+	}
+
+	/**
+	 * Returns the number of columns of the board.
+	 *
+	 * @return the number of columns.
+	 */
+	public int get_columns() {
+		return columns;
+	}
+
+	/**
+	 * Returns the number of rows of the board.
+	 *
+	 * @return the number of rows.
+	 */
+	public int get_rows() {
+		return rows;
+	}
+
+	/**
+	 * Returns the number of tiles of the board.
+	 *
+	 * @return the number of tiles.
+	 */
+	public int get_size() {
+		return size;
+	}
+
+	/**
+	 * Returns a bitboard with one bit set for every tile of the board.
+	 *
+	 * @return the mask of the board.
+	 */
+	public long get_mask() {
+		return mask;
+	}
+
+	/**
+	 * Returns the bitboard of the tiles a Yoshi can jump to from the given
+	 * tile, regardless of whether they are free.
+	 *
+	 * @param index The index of a tile.
+	 * @return the bitboard of the knight jumps from the tile.
+	 */
+	public long get_knight_mask(int index) {
+		return knight_masks[index];
+	}
+
+	/**
+	 * Returns the bitboard of the tiles a Yoshi can jump to from any of the
+	 * given tiles, regardless of whether they are free, with one shift per
+	 * jump.
+	 *
+	 * @param tiles A bitboard.
+	 * @return the bitboard of the knight jumps from the tiles.
+	 */
+	public long get_knight_attacks(long tiles) {
+		long attacks = 0;
+
+		for (int jump = 0; jump < jump_shifts.length; jump++) {
+			long sources = tiles & jump_sources[jump];
+			int shift = jump_shifts[jump];
+
+			attacks |= shift > 0 ? sources << shift : sources >>> -shift;
+		}
+
+		return attacks;
+	}
+
+	/**
+	 * Returns the indices of the tiles a Yoshi can jump to from the given
+	 * tile, in move generation order. The returned array must not be modified.
+	 *
+	 * @param index The index of a tile.
+	 * @return the indices of the knight jumps from the tile.
+	 */
+	public int[] get_knight_moves(int index) {
+		return knight_moves[index];
+	}
+
+	/**
+	 * Returns the hash key of a tile painted by the given player.
+	 *
+	 * @param player The player (GREEN or RED).
+	 * @param index  The index of a tile.
+	 * @return the hash key of the painted tile.
+	 */
+	public long get_tile_key(Player player, int index) {
+		return tile_keys[player.ordinal()][index];
+	}
+
+	/**
+	 * Returns the hash key of the given player's Yoshi standing on a tile.
+	 *
+	 * @param player The player (GREEN or RED).
+	 * @param index  The index of a tile, or -1 if the Yoshi is not on the board.
+	 * @return the hash key of the Yoshi position.
+	 */
+	public long get_yoshi_key(Player player, int index) {
+		return index < 0 ? 0 : yoshi_keys[player.ordinal()][index];
+	}
+
+	/**
+	 * Returns the hash key of the given player being the one to move. Game
+	 * states do not know whose turn it is, so the search XORs this key into
+	 * the hash of a state when it needs to tell both turns apart.
+	 *
+	 * @param player The player to move (GREEN or RED).
+	 * @return the hash key of the turn.
+	 */
+	public long get_turn_key(Player player) {
+		return turn_keys[player.ordinal()];
+	}
+
+	/**
+	 * Returns the number of symmetries of the board: 8 for a square board, 4
+	 * otherwise. Symmetry 0 is the identity.
+	 *
+	 * @return the number of symmetries.
+	 */
+	public int get_symmetry_count() {
+		return symmetries.length;
+	}
+
+	/**
+	 * Returns the tile a tile is mapped to by a symmetry of the board.
+	 *
+	 * @param symmetry The number of the symmetry.
+	 * @param index    The index of a tile, or -1.
+	 * @return the index of the mapped tile, or -1 if the index is -1.
+	 */
+	public int get_symmetric_index(int symmetry, int index) {
+		return index < 0 ? index : symmetries[symmetry][index];
+	}
+
+	/**
+	 * Returns the bitboard a bitboard is mapped to by a symmetry of the board.
+	 *
+	 * @param symmetry The number of the symmetry.
+	 * @param tiles    A bitboard.
+	 * @return the mapped bitboard.
+	 */
+	public long get_symmetric_mask(int symmetry, long tiles) {
+		int[] mapping = symmetries[symmetry];
+		long mapped_tiles = 0;
+
+		for (long remaining = tiles; remaining != 0; remaining &= remaining - 1)
+			mapped_tiles |= 1L << mapping[Long.numberOfTrailingZeros(remaining)];
+
+		return mapped_tiles;
+	}
+
+	/**
+	 * Returns the symmetry that undoes the given one.
+	 *
+	 * @param symmetry The number of a symmetry.
+	 * @return the number of its inverse.
+	 */
+	public int get_inverse_symmetry(int symmetry) {
+		return inverse_symmetries[symmetry];
+	}
+
+	/**
+	 * Checks if the given coordinates are within the board boundaries.
+	 *
+	 * @param x The x coordinate.
+	 * @param y The y coordinate.
+	 * @return true if the coordinates are within the board, false otherwise.
+	 */
+	public boolean is_in_board(int x, int y) {
+		return 0 <= y && y < rows && 0 <= x && x < columns;
+	}
+
+	/**
+	 * Returns the bit index of the given coordinates. Tiles are numbered row by
+	 * row, so the index of (x, y) is y * columns + x.
+	 *
+	 * @param x The x coordinate.
+	 * @param y The y coordinate.
+	 * @return the index of the tile, or -1 if it is not within the board.
+	 */
+	public int get_index(int x, int y) {
+		return is_in_board(x, y) ? y * columns + x : -1;
+	}
+
+	/**
+	 * Returns the bit index of the given coordinate.
+	 *
+	 * @param coordinate A coordinate.
+	 * @return the index of the tile, or -1 if it is not within the board.
+	 */
+	public int get_index(Coordinate coordinate) {
+		return get_index(coordinate.get_x(), coordinate.get_y());
+	}
+
+	/**
+	 * Returns the coordinate of the tile with the given index.
+	 *
+	 * @param index The index of a tile.
+	 * @return the coordinate of the tile, or null if the index is negative.
+	 */
+	public Coordinate get_coordinate(int index) {
+		return index < 0 ? null : new Coordinate(index % columns, index / columns);
+	}
+
+	/**
+	 * Returns the coordinates of every tile set in the given bitboard, in
+	 * index order.
+	 *
+	 * @param tiles A bitboard.
+	 * @return the list of coordinates.
+	 */
+	public List <Coordinate> get_coordinates(long tiles) {
+		List <Coordinate> coordinates = new ArrayList <>(Long.bitCount(tiles));
+
+		for (long remaining = tiles; remaining != 0; remaining &= remaining - 1)
+			coordinates.add(get_coordinate(Long.numberOfTrailingZeros(remaining)));
+
+		return coordinates;
+	}
+}
@@ -0,0 +1,175 @@
+package src.classes;
+
+import src.classes.GameState.Player;
+
+
+public class CanonicalForm {
+	private GameState game_state;
+	private int symmetry;
+	private boolean colours_swapped;
+
+
+	private CanonicalForm(GameState game_state, int symmetry, boolean colours_swapped) {
+		this.game_state = game_state;
+		this.symmetry = symmetry;
+		this.colours_swapped = colours_swapped;
+	}
+
+
+	/**
+	 * Returns the canonical form of a game state: the smallest of the game
+	 * states the symmetries of the board, and swapping the colours if
+	 * allowed, map it to.
+	 *
+	 * @param game_state   A game state.
+	 * @param swap_colours Whether the colours may be swapped, which the caller
+	 *                     undoes with {@link #from_canonical(Player)}.
+	 * @return the canonical form of the game state.
+	 */
+	public static CanonicalForm of(GameState game_state, boolean swap_colours) {
+		Board board = game_state.get_board();
+		int best_symmetry = 0;
+		boolean best_swap = false;
+		long[] best = null;
+
+		for (int swap = 0; swap < (swap_colours ? 2 : 1); swap++) {
+			Player green = swap == 0 ? Player.GREEN : Player.RED;
+			Player red = swap == 0 ? Player.RED : Player.GREEN;
+
+			for (int symmetry = 0; symmetry < board.get_symmetry_count(); symmetry++) {
+				long[] candidate = {
+					board.get_symmetric_mask(symmetry, game_state.get_mask(green)),
+					board.get_symmetric_mask(symmetry, game_state.get_mask(red)),
+					board.get_symmetric_index(symmetry, game_state.get_square(green)),
+					board.get_symmetric_index(symmetry, game_state.get_square(red))
+				};
+
+				if (best == null || compare(candidate, best) < 0) {
+					best = candidate;
+					best_symmetry = symmetry;
+					best_swap = swap == 1;
+				}
+			}
+		}
+
+		return new CanonicalForm(game_state.transform(best_symmetry, best_swap), best_symmetry, best_swap);
+	}
+
+	/**
+	 * Returns the smallest Zobrist hash of a game state and of the game
+	 * states the symmetries of the board map it to, without building them.
+	 *
+	 * @param game_state A game state.
+	 * @return the symmetric hash of the game state.
+	 */
+	public static long get_hash(GameState game_state) {
+		Board board = game_state.get_board();
+		long minimum_hash = game_state.get_hash();
+
+		for (int symmetry = 1; symmetry < board.get_symmetry_count(); symmetry++) {
+			long hash = 0;
+
+			for (Player player : Player.values()) {
+				hash ^= board.get_yoshi_key(player, board.get_symmetric_index(symmetry, game_state.get_square(player)));
+
+				for (long tiles = game_state.get_mask(player); tiles != 0; tiles &= tiles - 1)
+					hash ^= board.get_tile_key(player,
+							board.get_symmetric_index(symmetry, Long.numberOfTrailingZeros(tiles)));
+			}
+
+			minimum_hash = Long.compareUnsigned(hash, minimum_hash) < 0 ? hash : minimum_hash;
+		}
+
+		return minimum_hash;
+	}
+
+	/**
+	 * Compares two candidate forms, field by field, as unsigned numbers.
+	 *
+	 * @param first  A candidate form.
+	 * @param second Another candidate form.
+	 * @return a negative number, zero or a positive number if the first is
+	 *         smaller than, equal to or greater than the second.
+	 */
+	private static int compare(long[] first, long[] second) {
+		for (int i = 0; i < first.length; i++) {
+			int comparison = Long.compareUnsigned(first[i], second[i]);
+
+			if (comparison != 0)
+				return comparison;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Returns the canonical game state.
+	 *
+	 * @return the canonical game state.
+	 */
+	public GameState get_game_state() {
+		return game_state;
+	}
+
+	/**
+	 * Returns the symmetry that maps the original game state to the canonical
+	 * one.
+	 *
+	 * @return the number of the symmetry.
+	 */
+	public int get_symmetry() {
+		return symmetry;
+	}
+
+	/**
+	 * Checks if the colours were swapped to get the canonical game state.
+	 *
+	 * @return true if the colours were swapped, false otherwise.
+	 */
+	public boolean are_colours_swapped() {
+		return colours_swapped;
+	}
+
+	/**
+	 * Maps a tile of the original game state to the canonical one.
+	 *
+	 * @param index The index of a tile, or -1.
+	 * @return the index of the tile in the canonical game state.
+	 */
+	public int to_canonical(int index) {
+		return game_state.get_board().get_symmetric_index(symmetry, index);
+	}
+
+	/**
+	 * Maps a tile of the canonical game state, such as a move found for it,
+	 * back to the original one.
+	 *
+	 * @param index The index of a tile, or -1.
+	 * @return the index of the tile in the original game state.
+	 */
+	public int from_canonical(int index) {
+		Board board = game_state.get_board();
+
+		return board.get_symmetric_index(board.get_inverse_symmetry(symmetry), index);
+	}
+
+	/**
+	 * Maps a player of the original game state to the canonical one.
+	 *
+	 * @param player A player.
+	 * @return the player with the same Yoshi in the canonical game state.
+	 */
+	public Player to_canonical(Player player) {
+		return colours_swapped ? (player == Player.GREEN ? Player.RED : Player.GREEN) : player;
+	}
+
+	/**
+	 * Maps a player of the canonical game state back to the original one.
+	 *
+	 * @param player A player.
+	 * @return the player with the same Yoshi in the original game state.
+	 */
+	public Player from_canonical(Player player) {
+		return to_canonical(player); // Swapping the colours is its own inverse
+	}
+}
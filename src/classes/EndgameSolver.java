@@ -0,0 +1,309 @@
+package src.classes;
+
+import src.classes.GameState.Player;
+
+
+public class EndgameSolver {
+	public static final int UNKNOWN = Integer.MIN_VALUE; // Returned when the position can not be solved
+	public static final float WIN_SCORE = 10000; // Added to the margin of a won game, far above any heuristic score
+
+	private static final int TABLE_BITS = 18; // log2 of the number of slots of the memo table
+	private static final int NODE_LIMIT = 20_000; // Nodes the search of a single region may visit
+	private static final int MAX_REGION = 20; // Most tiles a region may have to be solved, by default
+
+	private Board board;
+	private int max_region;
+	private long[] regions;
+	private byte[] squares;
+	private byte[] lengths;
+	private int[][] ordered_moves = new int[Long.SIZE][8];
+	private long nodes;
+	private long deadline;
+	private long solved;
+	private long unsolved;
+
+
+	public EndgameSolver(Board board) {
+		this(board, MAX_REGION);
+	}
+
+	public EndgameSolver(Board board, int max_region) {
+		this.board = board;
+		this.max_region = max_region;
+
+		regions = new long[1 << TABLE_BITS];
+		squares = new byte[1 << TABLE_BITS];
+		lengths = new byte[1 << TABLE_BITS];
+	}
+
+
+	/**
+	 * Returns the free tiles a Yoshi standing on the given tile can ever
+	 * reach, by any sequence of jumps over free tiles. The reachable set is
+	 * flooded one jump at a time, with the jumps of the whole frontier
+	 * computed at once.
+	 *
+	 * @param square The tile of the Yoshi, or -1 if it is not on the board.
+	 * @param free   The free tiles.
+	 * @return the bitboard of the reachable tiles.
+	 */
+	public long get_region(int square, long free) {
+		return get_region(square, free, 0);
+	}
+
+	/**
+	 * Returns the free tiles a Yoshi standing on the given tile can ever
+	 * reach, like {@link #get_region(int, long)}, unless it can reach one of
+	 * the given tiles.
+	 *
+	 * @param square    The tile of the Yoshi, or -1 if it is not on the board.
+	 * @param free      The free tiles.
+	 * @param forbidden The tiles whose reach stops the flood.
+	 * @return the bitboard of the reachable tiles, or -1 (every tile, which
+	 *         can not be a region since the tile of the Yoshi is not free) if
+	 *         one of the forbidden tiles is reachable.
+	 */
+	private long get_region(int square, long free, long forbidden) {
+		if (square < 0)
+			return 0;
+
+		long region = 0;
+		long frontier = board.get_knight_mask(square) & free;
+
+		while (frontier != 0) {
+			if ((frontier & forbidden) != 0)
+				return -1;
+
+			region |= frontier;
+			frontier = board.get_knight_attacks(frontier) & free & ~region;
+		}
+
+		return region;
+	}
+
+	/**
+	 * Checks if the Yoshis are in disconnected regions of the board: no free
+	 * tile can be reached by both of them, so neither can ever block the
+	 * other again. That includes a finished game, where neither can move.
+	 *
+	 * @param game_state A game state.
+	 * @return true if the regions of the Yoshis are disjoint, false otherwise.
+	 */
+	public boolean are_separated(GameState game_state) {
+		long free = game_state.get_mask(null);
+
+		return (get_region(game_state.get_square(Player.GREEN), free) &
+				get_region(game_state.get_square(Player.RED), free)) == 0;
+	}
+
+	/**
+	 * Solves a game state whose Yoshis are in disconnected regions, where
+	 * each Yoshi paints the longest knight path of its own region.
+	 *
+	 * @param game_state A game state.
+	 * @param player     The player the margin is counted for.
+	 * @return the final number of tiles of the player minus those of the
+	 *         opponent, or UNKNOWN if the Yoshis are not separated or a
+	 *         region is too large to solve.
+	 */
+	public int solve(GameState game_state, Player player) {
+		return solve(game_state, player, 0);
+	}
+
+	/**
+	 * Solves a game state whose Yoshis are in disconnected regions, like
+	 * {@link #solve(GameState, Player)}, giving up once the given time has
+	 * passed.
+	 *
+	 * @param game_state A game state.
+	 * @param player     The player the margin is counted for.
+	 * @param deadline   The value of System.nanoTime() after which the search
+	 *                   is given up on, or 0 for no limit.
+	 * @return the final number of tiles of the player minus those of the
+	 *         opponent, or UNKNOWN if the Yoshis are not separated, a region
+	 *         is too large to solve or the time ran out.
+	 */
+	public int solve(GameState game_state, Player player, long deadline) {
+		Player opponent = player == Player.GREEN ? Player.RED : Player.GREEN;
+		long free = game_state.get_mask(null);
+		int square = game_state.get_square(player);
+		int opponent_square = game_state.get_square(opponent);
+		long region = get_region(square, free);
+		long opponent_region = get_region(opponent_square, free, region);
+
+		if (opponent_region == -1 || Long.bitCount(region) > max_region || Long.bitCount(opponent_region) > max_region)
+			return UNKNOWN;
+
+		this.deadline = deadline;
+
+		int path = solve_region(square, region);
+		int opponent_path = path < 0 ? -1 : solve_region(opponent_square, opponent_region);
+
+		if (opponent_path < 0) {
+			unsolved++;
+			return UNKNOWN;
+		}
+
+		solved++;
+
+		return game_state.get_tile_count(player) + path - game_state.get_tile_count(opponent) - opponent_path;
+	}
+
+	/**
+	 * Turns an exact margin into a score that ranks above (for a win) or
+	 * below (for a loss) every heuristic score, and a bigger margin above a
+	 * smaller one. A draw scores 0.
+	 *
+	 * @param margin The final margin of the maximized player.
+	 * @return the score of the margin.
+	 */
+	public static float get_score(int margin) {
+		return margin == 0 ? 0 : Math.signum(margin) * WIN_SCORE + margin;
+	}
+
+	/**
+	 * Returns the number of jumps of the longest knight path from the given
+	 * tile through its region, remembering when the region is given up on for
+	 * its size so that the next game state with the same region does not try
+	 * again.
+	 *
+	 * @param square The tile of the Yoshi, or -1 if it is not on the board.
+	 * @param region The free tiles reachable from the tile.
+	 * @return the length of the longest path, or -1 if the node limit was
+	 *         reached or the time ran out.
+	 */
+	private int solve_region(int square, long region) {
+		nodes = 0; // Each region gets the whole node limit
+
+		int length = get_longest_path(square, region, 0);
+
+		if (length < 0 && nodes > NODE_LIMIT) // Not when the time ran out, as more time may solve it
+			store(get_slot(square, region), square, region, -1);
+
+		return length;
+	}
+
+	/**
+	 * Returns the number of jumps of the longest knight path from the given
+	 * tile through the given tiles, each visited at most once.
+	 *
+	 * @param square The tile of the Yoshi, or -1 if it is not on the board.
+	 * @param region The tiles the path may visit: the free tiles reachable
+	 *               from the tile.
+	 * @param depth  The number of jumps made so far by the search.
+	 * @return the length of the longest path, or -1 if the node limit was
+	 *         reached or the time ran out.
+	 */
+	private int get_longest_path(int square, long region, int depth) {
+		if (square < 0 || region == 0)
+			return 0;
+		else if ((region & (region - 1)) == 0) // A single tile left to jump to
+			return 1;
+
+		int slot = get_slot(square, region);
+
+		if (lengths[slot] != 0 && regions[slot] == region && squares[slot] == square)
+			return lengths[slot] - 2;
+
+		if (++nodes > NODE_LIMIT)
+			return -1;
+		else if ((nodes & 1023) == 0 && deadline != 0 && System.nanoTime() > deadline)
+			return -1;
+
+		int[] moves = ordered_moves[depth];
+		int count = 0;
+
+		// Warnsdorff's rule: the moves with the fewest onward jumps first, which
+		// finds a path through the whole region, if there is one, early
+		for (long tiles = board.get_knight_mask(square) & region; tiles != 0; tiles &= tiles - 1) {
+			int move = Long.numberOfTrailingZeros(tiles);
+			int key = Long.bitCount(board.get_knight_mask(move) & region) << 8 | move;
+			int i = count++;
+
+			for (; i > 0 && moves[i - 1] > key; i--)
+				moves[i] = moves[i - 1];
+
+			moves[i] = key;
+		}
+
+		int limit = Long.bitCount(region);
+		int dead_ends = 0; // Tiles with at most one neighbour in the region, which only the ends of a path can visit
+
+		for (long tiles = region; tiles != 0; tiles &= tiles - 1) {
+			long neighbours = board.get_knight_mask(Long.numberOfTrailingZeros(tiles)) & region;
+
+			if ((neighbours & (neighbours - 1)) == 0)
+				dead_ends++;
+		}
+
+		limit -= Math.max(dead_ends - 2, 0);
+
+		int best = 0;
+
+		for (int i = 0; i < count && best < limit; i++) {
+			int move = moves[i] & 0xFF;
+			long remaining = region & ~(1L << move);
+			long next_region = get_region(move, remaining);
+
+			if (1 + Long.bitCount(next_region) <= best)
+				continue;
+
+			int length = get_longest_path(move, next_region, depth + 1);
+
+			if (length < 0)
+				return -1;
+
+			best = Math.max(best, 1 + length);
+		}
+
+		store(slot, square, region, best);
+
+		return best;
+	}
+
+	/**
+	 * Returns the slot of the memo table of a tile and a region.
+	 *
+	 * @param square The tile of the Yoshi.
+	 * @param region The tiles the path may visit.
+	 * @return the slot.
+	 */
+	private static int get_slot(int square, long region) {
+		return (int) (((region ^ square) * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - TABLE_BITS));
+	}
+
+	/**
+	 * Stores the length of the longest path from a tile through a region,
+	 * replacing whatever the slot held.
+	 *
+	 * @param slot   The slot of the memo table.
+	 * @param square The tile of the Yoshi.
+	 * @param region The tiles the path may visit.
+	 * @param length The length of the longest path, or -1 if it was given up
+	 *               on.
+	 */
+	private void store(int slot, int square, long region, int length) {
+		regions[slot] = region;
+		squares[slot] = (byte) square;
+		lengths[slot] = (byte) (length + 2); // 0 marks an empty slot
+	}
+
+	/**
+	 * Returns the number of game states solved since the solver was created.
+	 *
+	 * @return the number of solved game states.
+	 */
+	public long get_solved() {
+		return solved;
+	}
+
+	/**
+	 * Returns the number of game states with separated Yoshis that were given
+	 * up on because a region was too large.
+	 *
+	 * @return the number of unsolved game states.
+	 */
+	public long get_unsolved() {
+		return unsolved;
+	}
+}
@@ -0,0 +1,13 @@
+package src.classes;
+
+
+public interface Engine {
+	/**
+	 * Chooses the move of the engine's player in a game state.
+	 *
+	 * @param game_state The current game state, left unchanged.
+	 * @return the tile to move to, the tile of the Yoshi if it can not move
+	 *         (the opponent then moves again), or null if the game is over.
+	 */
+	Coordinate run(GameState game_state);
+}
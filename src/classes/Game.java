@@ -7,6 +7,7 @@ import java.util.Random;
 import src.classes.GameState.Player;
 
 public class Game {
+	private Board board;
 	private Difficulty difficulty;
 	private int columns;
 	private int rows;
@@ -16,6 +17,8 @@ public class Game {
 		this.difficulty = difficulty;
 		this.rows = rows;
 		this.columns = columns;
+
+		board = Board.get(rows, columns);
 	}
 
 
@@ -24,38 +27,34 @@ public class Game {
 	 *
 	 * This method initializes the game state by randomly placing the green Yoshi
 	 * and the red Yoshi on different tiles within the game board. It ensures
-	 * that the two Yoshis do not start on the same tile. It also initializes the
-	 * list of free tiles and the lists of tiles occupied by each Yoshi.
+	 * that the two Yoshis do not start on the same tile. Each Yoshi paints its
+	 * starting tile; every other tile of the board is free.
 	 *
 	 * @return the initial game state with randomly placed Yoshis and the list of
 	 *         free tiles.
 	 */
 	public GameState build_initial_game_state() {
-		Random random = new Random();
-
-		Coordinate green_yoshi = new Coordinate(random.nextInt(columns), random.nextInt(rows));
-		Coordinate red_yoshi = new Coordinate(random.nextInt(columns), random.nextInt(rows));
-
-		while (green_yoshi.equals(red_yoshi))
-			red_yoshi = new Coordinate(random.nextInt(columns), random.nextInt(rows));
-
-		List <Coordinate> free_tiles = new ArrayList <>();
-		List <Coordinate> green_yoshi_tiles = new ArrayList <>();
-		List <Coordinate> red_yoshi_tiles = new ArrayList <>();
+		return build_initial_game_state(new Random().nextLong());
+	}
 
-		green_yoshi_tiles.add(green_yoshi);
-		red_yoshi_tiles.add(red_yoshi);
+	/**
+	 * Builds the initial game state with the Yoshis placed from the given
+	 * seed, so that the same seed always gives the same game state.
+	 *
+	 * @param seed The seed of the random placement.
+	 * @return the initial game state with randomly placed Yoshis and the list of
+	 *         free tiles.
+	 */
+	public GameState build_initial_game_state(long seed) {
+		Random random = new Random(seed);
 
-		for (int i = 0; i < rows; i++)
-			for (int j = 0; j < columns; j++) {
-				Coordinate coordinate = new Coordinate(j, i);
+		int green_yoshi = board.get_index(random.nextInt(columns), random.nextInt(rows));
+		int red_yoshi = board.get_index(random.nextInt(columns), random.nextInt(rows));
 
-				if (!coordinate.equals(green_yoshi) &&
-						!coordinate.equals(red_yoshi))
-					free_tiles.add(coordinate);
-			}
+		while (green_yoshi == red_yoshi)
+			red_yoshi = board.get_index(random.nextInt(columns), random.nextInt(rows));
 
-		return new GameState(green_yoshi, red_yoshi, free_tiles, red_yoshi_tiles, green_yoshi_tiles);
+		return new GameState(board, green_yoshi, red_yoshi, 1L << green_yoshi, 1L << red_yoshi);
 	}
 
 	/**
@@ -67,6 +66,15 @@ public class Game {
 		return difficulty;
 	}
 
+	/**
+	 * Returns the board of the game.
+	 *
+	 * @return the board of the game.
+	 */
+	public Board get_board() {
+		return board;
+	}
+
 	/**
 	 * Returns the number of columns in the game.
 	 *
@@ -94,8 +102,8 @@ public class Game {
 	 */
 	public Player get_winner(GameState game_state) {
 		Player winner = null;
-		int green_yoshi_tiles = game_state.get_tiles(Player.GREEN).size();
-		int red_yoshi_tiles = game_state.get_tiles(Player.RED).size();
+		int green_yoshi_tiles = game_state.get_tile_count(Player.GREEN);
+		int red_yoshi_tiles = game_state.get_tile_count(Player.RED);
 
 		if (green_yoshi_tiles > red_yoshi_tiles)
 			winner = Player.GREEN;
@@ -105,28 +113,6 @@ public class Game {
 		return winner;
 	}
 
-	/**
-	 * Checks if a given coordinate is a valid coordinate to move in a given
-	 * game state.
-	 * A coordinate is considered valid if it is within the board boundaries
-	 * and not occupied by any player.
-	 *
-	 * @param coordinate The coordinate to check.
-	 * @param game_state A game state.
-	 * @return true if the coordinate is valid to move in, false otherwise.
-	 */
-	private boolean is_valid_cordinate_to_move_in(Coordinate coordinate, GameState game_state) {
-		int x = coordinate.get_x();
-		int y = coordinate.get_y();
-
-		boolean is_in_board = 0 <= y && y < rows && 0 <= x && x < columns;
-
-		return is_in_board &&
-				game_state.get_tiles(Player.GREEN).indexOf(coordinate) == -1 &&
-				game_state.get_tiles(Player.RED).indexOf(coordinate) == -1;
-	}
-
-
 	/**
 	 * Plays a game by moving the given player to the specified tile in a copy
 	 * of the given game state.
@@ -153,36 +139,65 @@ public class Game {
 	 */
 	public List <Coordinate> get_available_tiles(Coordinate coordinate, GameState game_state) {
 		List <Coordinate> coordinates = new ArrayList <>();
+		int index = board.get_index(coordinate);
+
+		if (index != -1) {
+			long free_tiles = game_state.get_mask(null);
 
-		int x = coordinate.get_x();
-		int y = coordinate.get_y();
-
-		/*
-		 * (x - 1,y - 2) -> |((x - 1) - x)| + |(y - 2) - y)| = 3
-		 * (x + 1,y - 2) -> |((x + 1) - x)| + |(y - 2) - y)| = 3
-		 * (x + 2,y - 1) -> |((x + 2) - x)| + |(y - 1) - y)| = 3
-		 * (x + 2,y + 1) -> |((x + 2) - x)| + |(y + 1) - y)| = 3
-		 * (x + 1,y + 2) -> |((x + 1) - x)| + |(y + 2) - y)| = 3
-		 * (x - 1,y + 2) -> |((x - 1) - x)| + |(y + 2) - y)| = 3
-		 * (x - 2,y + 1) -> |((x - 2) - x)| + |(y + 1) - y)| = 3
-		 * (x - 2,y - 1) -> |((x - 2) - x)| + |(y - 1) - y)| = 3
-		 */
-		List <Coordinate> free_tiles = game_state.get_tiles(null);
-		for (int i = x - 2; i <= x + 2; i++) {
-			for (int j = y - 2; j <= y + 2; j++) {
-				if (Math.abs(i - x) + Math.abs(j - y) == 3) {
-					Coordinate possible_tile = new Coordinate(i, j);
-
-					if (is_valid_cordinate_to_move_in(possible_tile, game_state) &&
-							free_tiles.indexOf(possible_tile) != -1)
-						coordinates.add(possible_tile);
-				}
-			}
+			for (int tile : board.get_knight_moves(index))
+				if ((free_tiles & (1L << tile)) != 0)
+					coordinates.add(board.get_coordinate(tile));
 		}
 
 		return coordinates;
 	}
 
+	/**
+	 * Returns the bitboard of the tiles a Yoshi standing on the given tile can
+	 * move to: the precomputed knight jumps of the tile ANDed with the free
+	 * tiles.
+	 *
+	 * @param index      The index of the tile from which to find available tiles.
+	 * @param game_state The current game state.
+	 * @return the bitboard of the available tiles.
+	 */
+	public long get_available_mask(int index, GameState game_state) {
+		return board.get_knight_mask(index) & game_state.get_mask(null);
+	}
+
+	/**
+	 * Returns the number of tiles a Yoshi standing on the given tile can move
+	 * to.
+	 *
+	 * @param index      The index of the tile from which to count available tiles.
+	 * @param game_state The current game state.
+	 * @return the number of available tiles.
+	 */
+	public int get_available_count(int index, GameState game_state) {
+		return Long.bitCount(get_available_mask(index, game_state));
+	}
+
+	/**
+	 * Writes the indices of the available tiles from the given tile into the
+	 * given array, in the same order as {@link #get_available_tiles}, without
+	 * allocating.
+	 *
+	 * @param index      The index of the tile from which to find available tiles.
+	 * @param game_state The current game state.
+	 * @param tiles      An array with room for at least 8 indices.
+	 * @return the number of available tiles written into the array.
+	 */
+	public int get_available_tiles(int index, GameState game_state, int[] tiles) {
+		long free_tiles = game_state.get_mask(null);
+		int count = 0;
+
+		for (int tile : board.get_knight_moves(index))
+			if ((free_tiles & (1L << tile)) != 0)
+				tiles[count++] = tile;
+
+		return count;
+	}
+
 	/**
 	 * Checks if the game is finished in the given game sate by determining if
 	 * both players have no available tiles left.
@@ -191,8 +206,8 @@ public class Game {
 	 * @return true if the game is finished, false otherwise.
 	 */
 	public boolean is_game_finished(GameState game_state) {
-		return get_available_tiles(game_state.get_player(Player.GREEN), game_state).size() == 0 &&
-				get_available_tiles(game_state.get_player(Player.RED), game_state).size() == 0;
+		return get_available_mask(game_state.get_square(Player.GREEN), game_state) == 0 &&
+				get_available_mask(game_state.get_square(Player.RED), game_state) == 0;
 	}
 
 
@@ -1,26 +1,76 @@
 package src.classes;
 
-import java.util.ArrayList;
 import java.util.List;
 
 
 public class GameState {
-	private Coordinate green_yoshi = null;
-	private Coordinate red_yoshi = null;
-	private List <Coordinate> free_tiles = new ArrayList <>();
-	private List <Coordinate> green_yoshi_tiles = new ArrayList <>();
-	private List <Coordinate> red_yoshi_tiles = new ArrayList <>();
+	private Board board;
+	private int green_yoshi = -1;
+	private int red_yoshi = -1;
+	private long green_yoshi_tiles = 0;
+	private long red_yoshi_tiles = 0;
+	private long hash;
+	private int[] undo_moves = null;
+	private int undo_count = 0;
 
 
-	public GameState(Coordinate green_yoshi, Coordinate red_yoshi, List <Coordinate> free_tiles,
-						 List <Coordinate> red_yoshi_tiles, List <Coordinate> green_yoshi_tiles) {
+	public GameState(Board board, int green_yoshi, int red_yoshi, long green_yoshi_tiles, long red_yoshi_tiles) {
+		this.board = board;
 		this.green_yoshi = green_yoshi;
 		this.red_yoshi = red_yoshi;
-		this.free_tiles = free_tiles;
+		this.green_yoshi_tiles = green_yoshi_tiles;
 		this.red_yoshi_tiles = red_yoshi_tiles;
+
+		hash = compute_hash();
+	}
+
+	private GameState(Board board, int green_yoshi, int red_yoshi, long green_yoshi_tiles, long red_yoshi_tiles,
+						  long hash) {
+		this.board = board;
+		this.green_yoshi = green_yoshi;
+		this.red_yoshi = red_yoshi;
 		this.green_yoshi_tiles = green_yoshi_tiles;
+		this.red_yoshi_tiles = red_yoshi_tiles;
+		this.hash = hash;
+	}
+
+
+	/**
+	 * Computes the Zobrist hash of the game state from scratch: the XOR of the
+	 * keys of every painted tile and of the tiles on which the Yoshis stand.
+	 *
+	 * @return the hash of the game state.
+	 */
+	private long compute_hash() {
+		long hash = board.get_yoshi_key(Player.GREEN, green_yoshi) ^ board.get_yoshi_key(Player.RED, red_yoshi);
+
+		for (long tiles = green_yoshi_tiles; tiles != 0; tiles &= tiles - 1)
+			hash ^= board.get_tile_key(Player.GREEN, Long.numberOfTrailingZeros(tiles));
+
+		for (long tiles = red_yoshi_tiles; tiles != 0; tiles &= tiles - 1)
+			hash ^= board.get_tile_key(Player.RED, Long.numberOfTrailingZeros(tiles));
+
+		return hash;
+	}
+
+	/**
+	 * Returns the board on which this game state is played.
+	 *
+	 * @return the board of the game state.
+	 */
+	public Board get_board() {
+		return board;
 	}
 
+	/**
+	 * Returns the Zobrist hash of the game state. It is updated incrementally
+	 * on every move, so reading it is free.
+	 *
+	 * @return the hash of the game state.
+	 */
+	public long get_hash() {
+		return hash;
+	}
 
 	/**
 	 * Returns the coordinate associated with the specified player.
@@ -28,6 +78,16 @@ public class GameState {
 	 * @param player The player for which to retrieve his coordinate.
 	 */
 	public Coordinate get_player(Player player) {
+		return board.get_coordinate(get_square(player));
+	}
+
+	/**
+	 * Returns the index of the tile on which the specified player is.
+	 *
+	 * @param player The player for which to retrieve his tile.
+	 * @return the index of the tile, or -1 if the player is not on the board.
+	 */
+	public int get_square(Player player) {
 		if (player == Player.GREEN)
 			return green_yoshi;
 		else if (player == Player.RED)
@@ -39,16 +99,51 @@ public class GameState {
 	/**
 	 * Returns the list of tiles associated with the specified player.
 	 *
+	 * The list is built from the bitboards on every call, so it is meant for
+	 * the user interface; the search works with {@link #get_mask(Player)}.
+	 *
 	 * @param player The player for which to retrieve the tiles.
 	 * @return the list of tiles associated with the player.
 	 */
 	public List <Coordinate> get_tiles(Player player) {
+		return board.get_coordinates(get_mask(player));
+	}
+
+	/**
+	 * Returns the bitboard of the tiles associated with the specified player.
+	 *
+	 * @param player the player for which to retrieve the tiles (GREEN, RED or
+	 *               null for the free tiles).
+	 * @return the bitboard of the tiles associated with the player.
+	 */
+	public long get_mask(Player player) {
 		if (player == Player.GREEN)
 			return green_yoshi_tiles;
 		else if (player == Player.RED)
 			return red_yoshi_tiles;
 		else
-			return free_tiles;
+			return board.get_mask() & ~(green_yoshi_tiles | red_yoshi_tiles);
+	}
+
+	/**
+	 * Returns the number of tiles associated with the specified player.
+	 *
+	 * @param player the player for which to count the tiles (GREEN, RED or null
+	 *               for the free tiles).
+	 * @return the number of tiles associated with the player.
+	 */
+	public int get_tile_count(Player player) {
+		return Long.bitCount(get_mask(player));
+	}
+
+	/**
+	 * Checks if the tile with the given index is free.
+	 *
+	 * @param index The index of a tile within the board.
+	 * @return true if no player has painted the tile, false otherwise.
+	 */
+	public boolean is_free(int index) {
+		return ((green_yoshi_tiles | red_yoshi_tiles) & (1L << index)) == 0;
 	}
 
 	/**
@@ -59,12 +154,18 @@ public class GameState {
 	 * @param tile the coordinate of the tile to be added.
 	 */
 	public void add_tile(Player player, Coordinate tile) {
+		long bit = 1L << board.get_index(tile);
+
 		if (player == Player.GREEN)
-			green_yoshi_tiles.add(tile);
+			green_yoshi_tiles |= bit;
 		else if (player == Player.RED)
-			red_yoshi_tiles.add(tile);
-		else
-			free_tiles.add(tile);
+			red_yoshi_tiles |= bit;
+		else {
+			green_yoshi_tiles &= ~bit;
+			red_yoshi_tiles &= ~bit;
+		}
+
+		hash = compute_hash();
 	}
 
 	/**
@@ -74,30 +175,122 @@ public class GameState {
 	 * @param tile the tile to move the player to.
 	 */
 	public void move_to_tile(Player player, Coordinate tile) {
-		if (player == Player.GREEN && green_yoshi_tiles.indexOf(tile) == -1) {
-			green_yoshi_tiles.add(tile);
+		int index = board.get_index(tile);
+		long bit = 1L << index;
+
+		if (player == Player.GREEN && (green_yoshi_tiles & bit) == 0) {
+			hash ^= board.get_tile_key(player, index) ^ board.get_yoshi_key(player, green_yoshi) ^
+					board.get_yoshi_key(player, index);
+			green_yoshi_tiles |= bit;
+			green_yoshi = index;
+		} else if (player == Player.RED && (red_yoshi_tiles & bit) == 0) {
+			hash ^= board.get_tile_key(player, index) ^ board.get_yoshi_key(player, red_yoshi) ^
+					board.get_yoshi_key(player, index);
+			red_yoshi_tiles |= bit;
+			red_yoshi = index;
+		}
+	}
+
+	/**
+	 * Moves the specified player to the given free tile in place, remembering
+	 * the move so that it can be taken back with {@link #unmake_move()}.
+	 *
+	 * Unlike {@link #move_to_tile}, the tile is not checked; the search only
+	 * passes tiles returned by the move generator.
+	 *
+	 * @param player The player to move (GREEN or RED).
+	 * @param tile   the index of the tile to move the player to.
+	 */
+	public void make_move(Player player, int tile) {
+		if (undo_moves == null)
+			undo_moves = new int[board.get_size()]; // Every move paints a tile, so there can not be more moves
+
+		long bit = 1L << tile;
+
+		if (player == Player.GREEN) {
+			undo_moves[undo_count++] = (1 << 16) | ((green_yoshi + 1) << 8) | tile;
+			hash ^= board.get_tile_key(player, tile) ^ board.get_yoshi_key(player, green_yoshi) ^
+					board.get_yoshi_key(player, tile);
+			green_yoshi_tiles |= bit;
 			green_yoshi = tile;
-			free_tiles.remove(tile);
-		} else if (player == Player.RED && red_yoshi_tiles.indexOf(tile) == -1) {
-			red_yoshi_tiles.add(tile);
+		} else if (player == Player.RED) {
+			undo_moves[undo_count++] = ((red_yoshi + 1) << 8) | tile;
+			hash ^= board.get_tile_key(player, tile) ^ board.get_yoshi_key(player, red_yoshi) ^
+					board.get_yoshi_key(player, tile);
+			red_yoshi_tiles |= bit;
 			red_yoshi = tile;
-			free_tiles.remove(tile);
+		} else
+			throw new IllegalArgumentException("Error: invalid player");
+	}
+
+	/**
+	 * Moves the specified player to the given free tile in place.
+	 *
+	 * @param player The player to move (GREEN or RED).
+	 * @param tile   the tile to move the player to.
+	 */
+	public void make_move(Player player, Coordinate tile) {
+		make_move(player, board.get_index(tile));
+	}
+
+	/**
+	 * Takes back the last move made with {@link #make_move}, restoring the
+	 * painted tiles and the position of the player that moved.
+	 */
+	public void unmake_move() {
+		if (undo_count == 0)
+			throw new IllegalStateException("Error: there is no move to unmake");
+
+		int move = undo_moves[--undo_count];
+		int tile = move & 0xFF;
+		long bit = 1L << tile;
+		int previous_tile = ((move >> 8) & 0xFF) - 1;
+		Player player = (move >> 16) == 1 ? Player.GREEN : Player.RED;
+
+		hash ^= board.get_tile_key(player, tile) ^ board.get_yoshi_key(player, tile) ^
+				board.get_yoshi_key(player, previous_tile);
+
+		if (player == Player.GREEN) {
+			green_yoshi_tiles &= ~bit;
+			green_yoshi = previous_tile;
+		} else {
+			red_yoshi_tiles &= ~bit;
+			red_yoshi = previous_tile;
 		}
 	}
 
+	/**
+	 * Returns the game state mapped by a symmetry of the board, optionally
+	 * with the colours of the Yoshis swapped.
+	 *
+	 * @param symmetry     The number of the symmetry (see
+	 *                     {@link Board#get_symmetry_count()}).
+	 * @param swap_colours Whether the green Yoshi becomes the red one and the
+	 *                     other way around.
+	 * @return the mapped game state.
+	 */
+	public GameState transform(int symmetry, boolean swap_colours) {
+		int green_square = board.get_symmetric_index(symmetry, green_yoshi);
+		int red_square = board.get_symmetric_index(symmetry, red_yoshi);
+		long green_tiles = board.get_symmetric_mask(symmetry, green_yoshi_tiles);
+		long red_tiles = board.get_symmetric_mask(symmetry, red_yoshi_tiles);
+
+		if (swap_colours)
+			return new GameState(board, red_square, green_square, red_tiles, green_tiles);
+		else
+			return new GameState(board, green_square, red_square, green_tiles, red_tiles);
+	}
+
 	/**
 	 * Creates a deep copy of the GameState object.
 	 *
+	 * Only the position is copied: the moves made on this object can not be
+	 * unmade on the copy.
+	 *
 	 * @return a new GameState object that is a copy of the current object.
 	 */
 	public GameState copy() {
-		List <Coordinate> free_tiles_copy = new ArrayList <>(free_tiles);
-		List <Coordinate> green_yoshi_tiles_copy = new ArrayList <>(green_yoshi_tiles);
-		List <Coordinate> red_yoshi_tiles_copy = new ArrayList <>(red_yoshi_tiles);
-		Coordinate green_yoshi_copy = (green_yoshi != null) ? new Coordinate(green_yoshi.get_x(), green_yoshi.get_y()) : null;
-		Coordinate red_yoshi_copy = (red_yoshi != null) ? new Coordinate(red_yoshi.get_x(), red_yoshi.get_y()) : null;
-
-		return new GameState(green_yoshi_copy, red_yoshi_copy, free_tiles_copy, red_yoshi_tiles_copy, green_yoshi_tiles_copy);
+		return new GameState(board, green_yoshi, red_yoshi, green_yoshi_tiles, red_yoshi_tiles, hash);
 	}
 
 	/**
@@ -1,21 +1,64 @@
 package src.classes;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import src.classes.Game.Difficulty;
 import src.classes.GameState.Player;
 import src.classes.Node.Type;
+import src.classes.TranspositionTable.Bound;
+import src.classes.heuristic.Frontier;
 import src.classes.heuristic.Heuristic;
 
 
-public class Minimax {
+public class Minimax implements Engine {
+	private static final int REDUCTION_DEPTH = 3; // Smallest remaining depth at which late moves are reduced
+	private static final int REDUCTION_MOVE = 3; // Number of moves of a node searched before any is reduced
+
 	private List <Node> list = new ArrayList <>();
+	private Algorithm algorithm = Algorithm.ALPHA_BETA;
 	private Heuristic heuristic;
 	private Game game;
 	private int max_depth;
+	private int search_depth;
+	private int completed_depth;
+	private int[][] moves;
+	private int[][] move_scores;
+	private int[][] killer_moves;
+	private int[][] history;
+	private boolean move_ordering = false;
+	private boolean batch_evaluation = false;
+	private Frontier frontier;
+	private float[] leaf_scores = new float[8];
+	private boolean principal_variation_search = false;
+	private float aspiration_window = 0;
+	private boolean late_move_reductions = false;
+	private boolean pass_extensions = false;
+	private float root_score;
+	private float score;
+	private long nodes;
+	private long time_budget = 0;
+	private long deadline;
+	private long probe_deadline; // Deadline of the endgame solver, which the Lazy SMP helpers keep too
+	private boolean aborted;
+	private boolean depth_limited;
+	private volatile boolean stop_requested;
 	private Node root;
 	private Player maximized_player;
+	private Player minimized_player;
+	private TimeManager time_manager = null;
+	private TranspositionTable transposition_table = null;
+	private EndgameSolver endgame_solver = null;
+	private Tablebase tablebase = null;
+	private OpeningBook opening_book = null;
+	private int threads = 1;
+	private Parallelism parallelism = Parallelism.ROOT_SPLIT;
+	private ForkJoinPool pool = null;
+	private Minimax[] workers = null;
 
 
 	public Minimax(Heuristic heuristic, Game game, Player maximizing_player) {
@@ -23,16 +66,425 @@ public class Minimax {
 		this.maximized_player = maximizing_player;
 		this.heuristic = heuristic;
 
+		minimized_player = maximizing_player == Player.GREEN ? Player.RED : Player.GREEN;
+
 		Difficulty difficulty = game.get_difficulty();
 
 		if (difficulty == Difficulty.NORMAL)
 			max_depth = 2;
 		else if (difficulty == Difficulty.MEDIUM)
 			max_depth = 4;
-		else
+		else {
 			max_depth = 6;
+			late_move_reductions = true;
+			endgame_solver = new EndgameSolver(game.get_board());
+		}
+
+		search_depth = max_depth;
+		history = new int[Player.values().length][game.get_board().get_size()];
+		frontier = new Frontier(game.get_board(), 8);
+		ensure_capacity(max_depth);
+	}
+
+	/**
+	 * Constructs a worker that searches subtrees for the given engine, with
+	 * the same heuristic, players and options but its own buffers and
+	 * counters.
+	 *
+	 * @param engine The engine the worker searches for.
+	 */
+	private Minimax(Minimax engine) {
+		game = engine.game;
+		heuristic = engine.heuristic;
+		maximized_player = engine.maximized_player;
+		minimized_player = engine.minimized_player;
+		max_depth = engine.max_depth;
+		search_depth = max_depth;
+		history = new int[Player.values().length][game.get_board().get_size()];
+		frontier = new Frontier(game.get_board(), 8);
+		ensure_capacity(max_depth);
+	}
+
+
+	/**
+	 * Returns the algorithm used to search the game tree.
+	 *
+	 * @return the search algorithm.
+	 */
+	public Algorithm get_algorithm() {
+		return algorithm;
+	}
+
+	/**
+	 * Sets the algorithm used to search the game tree. Both algorithms return
+	 * the same move; ALPHA_BETA just visits far fewer nodes.
+	 *
+	 * @param algorithm the search algorithm.
+	 */
+	public void set_algorithm(Algorithm algorithm) {
+		this.algorithm = algorithm;
+	}
+
+	/**
+	 * Returns the depth of the search: the depth of the fixed-depth search,
+	 * and the deepest iteration of iterative deepening without a time budget.
+	 *
+	 * @return the depth of the search.
+	 */
+	public int get_max_depth() {
+		return max_depth;
+	}
+
+	/**
+	 * Sets the depth of the search, which is otherwise the one of the
+	 * difficulty of the game.
+	 *
+	 * @param max_depth the depth of the search (at least 1).
+	 */
+	public void set_max_depth(int max_depth) {
+		if (max_depth < 1)
+			throw new IllegalArgumentException("Error: the depth of the search must be at least 1");
+
+		this.max_depth = max_depth;
+
+		search_depth = max_depth;
+		ensure_capacity(max_depth);
+	}
+
+	/**
+	 * Checks if the alpha-beta search orders the moves before searching them.
+	 *
+	 * @return true if the moves are ordered, false otherwise.
+	 */
+	public boolean get_move_ordering() {
+		return move_ordering;
+	}
+
+	/**
+	 * Sets whether the alpha-beta search orders the moves before searching
+	 * them. Ordering does not change the value of the root, but when several
+	 * moves are equally good the one returned may differ from the unordered
+	 * search.
+	 *
+	 * @param move_ordering true to order the moves, false to search them in
+	 *                      generation order.
+	 */
+	public void set_move_ordering(boolean move_ordering) {
+		this.move_ordering = move_ordering;
+	}
+
+	/**
+	 * Checks if the leaves of the alpha-beta search are scored in batches.
+	 *
+	 * @return true if the leaves are scored in batches, false otherwise.
+	 */
+	public boolean get_batch_evaluation() {
+		return batch_evaluation;
+	}
+
+	/**
+	 * Sets whether the alpha-beta search scores the children of a node at
+	 * the last ply in one batch, off by default. The search is the same.
+	 *
+	 * @param batch_evaluation true to score the leaves in batches, false to
+	 *                         score them one at a time.
+	 */
+	public void set_batch_evaluation(boolean batch_evaluation) {
+		this.batch_evaluation = batch_evaluation;
+	}
+
+	/**
+	 * Checks if the alpha-beta search is a principal variation search.
+	 *
+	 * @return true if it is a principal variation search, false otherwise.
+	 */
+	public boolean get_principal_variation_search() {
+		return principal_variation_search;
+	}
+
+	/**
+	 * Sets whether the alpha-beta search is a principal variation search,
+	 * which returns the same move with fewer nodes.
+	 *
+	 * @param principal_variation_search true to search the principal variation
+	 *                                   with a full window and the rest with a
+	 *                                   null window.
+	 */
+	public void set_principal_variation_search(boolean principal_variation_search) {
+		this.principal_variation_search = principal_variation_search;
+	}
+
+	/**
+	 * Returns the half width of the aspiration window.
+	 *
+	 * @return the half width of the window, or 0 if there is no window.
+	 */
+	public float get_aspiration_window() {
+		return aspiration_window;
+	}
+
+	/**
+	 * Sets the half width of the aspiration window of iterative deepening,
+	 * centred on the score of the iteration two plies shallower.
+	 *
+	 * @param aspiration_window the half width of the window, or 0 to search
+	 *                          every iteration with an unbounded window.
+	 */
+	public void set_aspiration_window(float aspiration_window) {
+		this.aspiration_window = aspiration_window;
+	}
+
+	/**
+	 * Checks if the alpha-beta search reduces the depth of late moves.
+	 *
+	 * @return true if late moves are reduced, false otherwise.
+	 */
+	public boolean get_late_move_reductions() {
+		return late_move_reductions;
+	}
+
+	/**
+	 * Sets whether the alpha-beta search searches late moves one ply
+	 * shallower, on by default on HARD. Unlike the other options, it may
+	 * change the move returned.
+	 *
+	 * @param late_move_reductions true to reduce late moves, false to search
+	 *                             every move to the full depth.
+	 */
+	public void set_late_move_reductions(boolean late_move_reductions) {
+		this.late_move_reductions = late_move_reductions;
+	}
+
+	/**
+	 * Checks if the alpha-beta search extends passes.
+	 *
+	 * @return true if passes are extended, false otherwise.
+	 */
+	public boolean get_pass_extensions() {
+		return pass_extensions;
+	}
+
+	/**
+	 * Sets whether the alpha-beta search extends passes, so that a pass does
+	 * not take a ply of the depth. No difficulty turns them on.
+	 *
+	 * @param pass_extensions true to extend passes, false to count them as
+	 *                        moves.
+	 */
+	public void set_pass_extensions(boolean pass_extensions) {
+		this.pass_extensions = pass_extensions;
+	}
+
+	/**
+	 * Returns the transposition table used by the alpha-beta search.
+	 *
+	 * @return the transposition table, or null if the search does not use one.
+	 */
+	public TranspositionTable get_transposition_table() {
+		return transposition_table;
+	}
+
+	/**
+	 * Sets the transposition table used by the alpha-beta search. Its scores
+	 * are those of this engine, so it must not be shared with other engines.
+	 *
+	 * @param transposition_table the transposition table, or null for none.
+	 */
+	public void set_transposition_table(TranspositionTable transposition_table) {
+		this.transposition_table = transposition_table;
+	}
+
+	/**
+	 * Returns the endgame solver used by the alpha-beta search.
+	 *
+	 * @return the endgame solver, or null if the search does not use one.
+	 */
+	public EndgameSolver get_endgame_solver() {
+		return endgame_solver;
+	}
+
+	/**
+	 * Sets the endgame solver used by the alpha-beta search, on by default on
+	 * HARD. Nodes whose Yoshis are in disconnected regions are scored by their
+	 * exact final margin (see {@link EndgameSolver#get_score(int)}).
+	 *
+	 * @param endgame_solver the endgame solver, or null for none.
+	 */
+	public void set_endgame_solver(EndgameSolver endgame_solver) {
+		this.endgame_solver = endgame_solver;
+	}
+
+	/**
+	 * Returns the tablebase used by the alpha-beta search.
+	 *
+	 * @return the tablebase, or null if the search does not use one.
+	 */
+	public Tablebase get_tablebase() {
+		return tablebase;
+	}
+
+	/**
+	 * Sets the tablebase used by the alpha-beta search, which scores the
+	 * nodes it has by their exact final margin instead of searching them.
+	 *
+	 * @param tablebase the tablebase, built for the board of the game, or
+	 *                  null for none.
+	 */
+	public void set_tablebase(Tablebase tablebase) {
+		this.tablebase = tablebase;
+	}
+
+	/**
+	 * Returns the opening book of the engine.
+	 *
+	 * @return the opening book, or null if the engine does not use one.
+	 */
+	public OpeningBook get_opening_book() {
+		return opening_book;
+	}
+
+	/**
+	 * Sets the opening book of the engine, or null to play without one. Every
+	 * call to run first looks the game state up in the book, and only
+	 * searches when the book does not have it.
+	 *
+	 * @param opening_book the opening book, built for the board of the game.
+	 */
+	public void set_opening_book(OpeningBook opening_book) {
+		this.opening_book = opening_book;
+	}
+
+	/**
+	 * Returns the number of threads that search the root moves.
+	 *
+	 * @return the number of threads.
+	 */
+	public int get_threads() {
+		return threads;
+	}
+
+	/**
+	 * Sets the number of threads of the search. How they share the work
+	 * depends on the parallelism, see {@link #set_parallelism(Parallelism)}.
+	 *
+	 * @param threads the number of threads (at least 1).
+	 */
+	public void set_threads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Error: the number of threads must be at least 1");
+
+		if (pool != null)
+			pool.shutdown();
+
+		this.threads = threads;
+
+		pool = threads > 1 ? new ForkJoinPool(threads) : null;
+		workers = null;
+	}
+
+	/**
+	 * Returns how the threads of the search share the work.
+	 *
+	 * @return the parallelism.
+	 */
+	public Parallelism get_parallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Sets how the threads of the search share the work when there are more
+	 * than one. LAZY_SMP creates a transposition table on the first search if
+	 * the engine has none.
+	 *
+	 * @param parallelism the parallelism.
+	 */
+	public void set_parallelism(Parallelism parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Returns the time budget of each call to run.
+	 *
+	 * @return the time budget in milliseconds, or 0 if the search has a fixed
+	 *         depth.
+	 */
+	public long get_time_budget() {
+		return time_budget;
+	}
+
+	/**
+	 * Sets the time budget of each call to run. With a positive budget the
+	 * alpha-beta search deepens iteratively (depth 1, 2, 3...) until the
+	 * budget runs out, instead of searching to the depth of the difficulty.
+	 *
+	 * @param time_budget the time budget in milliseconds, or 0 to search to
+	 *                    the depth of the difficulty.
+	 */
+	public void set_time_budget(long time_budget) {
+		this.time_budget = time_budget;
+	}
+
+	/**
+	 * Returns the time manager of the game clock.
+	 *
+	 * @return the time manager, or null if the game is not played on a clock.
+	 */
+	public TimeManager get_time_manager() {
+		return time_manager;
 	}
 
+	/**
+	 * Sets the time manager of the game clock, or null to play without one.
+	 * While it is set, every call to run asks it for the budget of the move,
+	 * searches with iterative deepening, and charges the time spent to the
+	 * clock; the time budget of {@link #set_time_budget(long)} is ignored.
+	 *
+	 * @param time_manager the time manager.
+	 */
+	public void set_time_manager(TimeManager time_manager) {
+		this.time_manager = time_manager;
+	}
+
+	/**
+	 * Returns the depth of the last iteration completed by the last call to
+	 * run.
+	 *
+	 * @return the completed depth.
+	 */
+	public int get_completed_depth() {
+		return completed_depth;
+	}
+
+	/**
+	 * Asks a running search to stop as soon as possible. The search then
+	 * returns the best move of its last completed iteration. It may be called
+	 * from any thread; the request is cleared when the next search starts.
+	 */
+	public void stop() {
+		stop_requested = true;
+
+		if (workers != null)
+			for (Minimax worker : workers)
+				worker.stop_requested = true;
+	}
+
+	/**
+	 * Returns the score of the move returned by the last call to run.
+	 *
+	 * @return the score of the best move.
+	 */
+	public float get_score() {
+		return score;
+	}
+
+	/**
+	 * Returns the number of nodes visited by the last call to run.
+	 *
+	 * @return the number of visited nodes.
+	 */
+	public long get_nodes() {
+		return nodes;
+	}
 
 	/**
 	 * Expands a given node in the search tree.
@@ -42,6 +494,8 @@ public class Minimax {
 	private void expand_node(Node node) {
 		int depth = node.get_depth();
 
+		nodes++;
+
 		if (depth <= max_depth) {
 			GameState game_state = node.get_game_state();
 			Player player;
@@ -73,6 +527,96 @@ public class Minimax {
 		}
 	}
 
+	/**
+	 * Makes sure the buffers of the search have room for the given depth.
+	 *
+	 * An extended pass does not count towards the depth, but it is always
+	 * followed by a move that does, so the search never goes more than twice
+	 * the depth plies below the root.
+	 *
+	 * @param depth the depth of the search.
+	 */
+	private void ensure_capacity(int depth) {
+		int plies = 2 * depth;
+
+		if (moves != null && moves.length >= plies)
+			return;
+
+		int[] root_moves = moves == null ? new int[8] : moves[0];
+
+		moves = new int[plies][8];
+		move_scores = new int[plies][8];
+		killer_moves = new int[plies][2];
+		moves[0] = root_moves;
+
+		for (int[] killers : killer_moves)
+			Arrays.fill(killers, -1);
+	}
+
+	/**
+	 * Sorts the moves of a node, best first: the given move, the killer
+	 * moves of the depth, then the rest by history score and onward jumps.
+	 *
+	 * @param game_state A game state.
+	 * @param player     The player to move.
+	 * @param depth      The depth of the node.
+	 * @param count      The number of moves of the node, in moves[depth].
+	 * @param first_move The move to search first, or -1 if there is none.
+	 */
+	private void order_moves(GameState game_state, Player player, int depth, int count, int first_move) {
+		int[] available_tiles = moves[depth];
+		int[] scores = move_scores[depth];
+		int[] killers = killer_moves[depth];
+		int[] player_history = history[player.ordinal()];
+
+		for (int i = 0; i < count; i++) {
+			int tile = available_tiles[i];
+
+			if (tile == first_move)
+				scores[i] = Integer.MAX_VALUE;
+			else if (tile == killers[0])
+				scores[i] = Integer.MAX_VALUE - 1;
+			else if (tile == killers[1])
+				scores[i] = Integer.MAX_VALUE - 2;
+			else // The most onward jumps first, unlike a knight's tour: both heuristics reward mobility
+				scores[i] = Math.min(player_history[tile], 1 << 26) * 16 + game.get_available_count(tile, game_state);
+		}
+
+		for (int i = 1; i < count; i++) { // Insertion sort, there are at most 8 moves
+			int tile = available_tiles[i];
+			int score = scores[i];
+			int j = i - 1;
+
+			for (; j >= 0 && scores[j] < score; j--) {
+				available_tiles[j + 1] = available_tiles[j];
+				scores[j + 1] = scores[j];
+			}
+
+			available_tiles[j + 1] = tile;
+			scores[j + 1] = score;
+		}
+	}
+
+	/**
+	 * Records that a move caused a cutoff, as a killer move of its depth and
+	 * in the history of its player.
+	 *
+	 * @param player          The player that made the move.
+	 * @param depth           The depth of the node.
+	 * @param remaining_depth The remaining depth of the node.
+	 * @param tile            The move.
+	 */
+	private void record_cutoff(Player player, int depth, int remaining_depth, int tile) {
+		int[] killers = killer_moves[depth];
+
+		if (killers[0] != tile) {
+			killers[1] = killers[0];
+			killers[0] = tile;
+		}
+
+		history[player.ordinal()][tile] += remaining_depth * remaining_depth;
+	}
+
 	/**
 	 * Applies a heuristic function to evaluate the given game state.
 	 *
@@ -83,13 +627,713 @@ public class Minimax {
 		return heuristic.get_score(game_state);
 	}
 
+	/**
+	 * Returns the exact score of a game state from the tablebase or the
+	 * endgame solver, if either knows it.
+	 *
+	 * @param game_state A game state.
+	 * @param player     The player to move.
+	 * @return the exact score, or NaN if neither knows the game state.
+	 */
+	private float get_exact_score(GameState game_state, Player player) {
+		if (tablebase != null) {
+			int margin = tablebase.probe(game_state, player);
+
+			if (margin != Tablebase.UNKNOWN)
+				return EndgameSolver.get_score(player == maximized_player ? margin : -margin);
+		}
+
+		if (endgame_solver != null) {
+			int margin = endgame_solver.solve(game_state, maximized_player, probe_deadline);
+
+			if (margin != EndgameSolver.UNKNOWN)
+				return EndgameSolver.get_score(margin);
+		}
+
+		return Float.NaN;
+	}
+
+	/**
+	 * Searches the children of a node at the last ply, which are all leaves,
+	 * with their heuristic scores computed in a single batch first, and
+	 * otherwise as {@link #alpha_beta} would.
+	 *
+	 * @param game_state A game state, left unchanged when the method returns.
+	 * @param ply        The distance of the node from the root.
+	 * @param type       The type of the node (MAX if the maximized player
+	 *                   moves).
+	 * @param alpha      The value the maximized player is already assured of.
+	 * @param beta       The value the minimized player is already assured of.
+	 * @param count      The number of moves of the node, in moves[ply].
+	 * @return the utility of the node.
+	 */
+	private float search_leaves(GameState game_state, int ply, Type type, float alpha, float beta, int count) {
+		Player player = type == Type.MAX ? maximized_player : minimized_player;
+		Player opponent = type == Type.MAX ? minimized_player : maximized_player;
+		int[] available_tiles = moves[ply];
+
+		frontier.clear();
+
+		for (int i = 0; i < count; i++) {
+			game_state.make_move(player, available_tiles[i]);
+			frontier.add(game_state);
+			game_state.unmake_move();
+		}
+
+		heuristic.get_scores(frontier, leaf_scores);
+
+		float utility = type == Type.MAX ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+
+		for (int i = 0; i < count; i++) {
+			nodes++;
+
+			if ((nodes & 1023) == 0 && deadline != 0 && (stop_requested || System.nanoTime() > deadline))
+				aborted = true;
+
+			if (aborted)
+				return 0;
+
+			game_state.make_move(player, available_tiles[i]);
+			float child_utility = get_exact_score(game_state, opponent);
+
+			if (Float.isNaN(child_utility)) {
+				child_utility = leaf_scores[i];
+
+				if (!game.is_game_finished(game_state))
+					depth_limited = true;
+			}
+
+			game_state.unmake_move();
+
+			if (type == Type.MAX ? child_utility > utility : child_utility < utility)
+				utility = child_utility;
+
+			if (type == Type.MAX)
+				alpha = Math.max(alpha, utility);
+			else
+				beta = Math.min(beta, utility);
+
+			if (alpha >= beta) {
+				if (move_ordering)
+					record_cutoff(player, ply, 1, available_tiles[i]);
+
+				break;
+			}
+		}
+
+		return utility;
+	}
+
+	/**
+	 * Searches the game tree below the given game state depth first, making
+	 * and unmaking the moves on it, and cutting off the branches that can not
+	 * change the value of the root.
+	 *
+	 * @param game_state      A game state, left unchanged when the method
+	 *                        returns.
+	 * @param ply             The distance of the node from the root.
+	 * @param remaining_depth The depth left to search below the node.
+	 * @param type            The type of the node (MAX if the maximized player
+	 *                        moves).
+	 * @param alpha           The value the maximized player is already assured
+	 *                        of.
+	 * @param beta            The value the minimized player is already assured
+	 *                        of.
+	 * @return the utility of the node, or only a bound on it (at most alpha
+	 *         or at least beta) when it lies outside the window.
+	 */
+	private float alpha_beta(GameState game_state, int ply, int remaining_depth, Type type, float alpha, float beta) {
+		nodes++;
+
+		if ((nodes & 1023) == 0 && deadline != 0 && (stop_requested || System.nanoTime() > deadline))
+			aborted = true;
+
+		if (aborted)
+			return 0;
+
+		Player player = type == Type.MAX ? maximized_player : minimized_player;
+		float exact_score = get_exact_score(game_state, player);
+
+		if (!Float.isNaN(exact_score))
+			return exact_score;
+		else if (game.is_game_finished(game_state)) // is_leaf_node(node)
+			return apply_heuristic(game_state);
+		else if (remaining_depth <= 0) {
+			depth_limited = true;
+			return apply_heuristic(game_state);
+		}
+
+		Type child_type = type == Type.MAX ? Type.MIN : Type.MAX;
+		int[] available_tiles = moves[ply];
+		int count = game.get_available_tiles(game_state.get_square(player), game_state, available_tiles);
+
+		if (count == 0) // The opponent moves again
+			return alpha_beta(game_state, ply + 1, pass_extensions ? remaining_depth : remaining_depth - 1, child_type,
+					alpha, beta);
+
+		long key = game_state.get_hash() ^ game.get_board().get_turn_key(player);
+		float original_alpha = alpha;
+		float original_beta = beta;
+
+		int first_move = -1;
+		boolean use_table = transposition_table != null && remaining_depth >= 2; // Not worth a memory access next
+																				// to the leaves
+
+		if (use_table) {
+			long entry = transposition_table.probe(key);
+
+			if (entry != 0)
+				first_move = TranspositionTable.get_move(entry);
+
+			if (entry != 0 && TranspositionTable.get_depth(entry) >= remaining_depth) {
+				float score = TranspositionTable.get_score(entry);
+				Bound bound = TranspositionTable.get_bound(entry);
+
+				if (bound == Bound.LOWER)
+					alpha = Math.max(alpha, score);
+				else if (bound == Bound.UPPER)
+					beta = Math.min(beta, score);
+
+				if (bound == Bound.EXACT || alpha >= beta) {
+					// The entry stands for its whole subtree, which may have been cut
+					// at the depth of its search
+					if (!TranspositionTable.is_solved(entry))
+						depth_limited = true;
+
+					return score;
+				}
+			}
+		}
+
+		if (move_ordering)
+			order_moves(game_state, player, ply, count, first_move);
+
+		if (batch_evaluation && remaining_depth == 1)
+			return search_leaves(game_state, ply, type, alpha, beta, count);
+
+		float utility = type == Type.MAX ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+		int best_move = -1;
+		boolean outer_depth_limited = depth_limited; // Tracked per node so that the table knows solved subtrees
+
+		depth_limited = false;
+
+		for (int i = 0; i < count; i++) {
+			int reduction = late_move_reductions && remaining_depth >= REDUCTION_DEPTH && i >= REDUCTION_MOVE ? 1 : 0;
+
+			game_state.make_move(player, available_tiles[i]);
+			float child_utility = search_child(game_state, ply + 1, remaining_depth - 1, child_type, alpha, beta, i == 0,
+					reduction);
+			game_state.unmake_move();
+
+			if (aborted)
+				return 0;
+
+			if (type == Type.MAX ? child_utility > utility : child_utility < utility) {
+				utility = child_utility;
+				best_move = available_tiles[i];
+			}
+
+			if (type == Type.MAX)
+				alpha = Math.max(alpha, utility);
+			else
+				beta = Math.min(beta, utility);
+
+			if (alpha >= beta) {
+				if (move_ordering)
+					record_cutoff(player, ply, remaining_depth, available_tiles[i]);
+
+				break;
+			}
+		}
+
+		if (use_table && !aborted) {
+			Bound bound;
+
+			if (utility <= original_alpha)
+				bound = Bound.UPPER;
+			else if (utility >= original_beta)
+				bound = Bound.LOWER;
+			else
+				bound = Bound.EXACT;
+
+			if (bound == (type == Type.MAX ? Bound.UPPER : Bound.LOWER))
+				best_move = first_move; // Every move failed, so none of them is better than the others
+
+			transposition_table.store(key, remaining_depth, bound, utility, best_move, !depth_limited);
+		}
+
+		depth_limited |= outer_depth_limited;
+
+		return utility;
+	}
+
+	/**
+	 * Searches a child of a node, first with a null window (and shallower
+	 * if it is reduced) when that can prove it no better than its siblings.
+	 *
+	 * @param game_state      The game state of the child.
+	 * @param ply             The distance of the child from the root.
+	 * @param remaining_depth The depth left to search below the child.
+	 * @param type            The type of the child.
+	 * @param alpha           The alpha of the parent.
+	 * @param beta            The beta of the parent.
+	 * @param first_child     Whether the child is the first searched of its
+	 *                        parent.
+	 * @param reduction       The number of plies by which the child may be
+	 *                        searched shallower.
+	 * @return the utility of the child.
+	 */
+	private float search_child(GameState game_state, int ply, int remaining_depth, Type type, float alpha, float beta,
+			boolean first_child, int reduction) {
+		float utility;
+
+		if (reduction > 0) {
+			if (type == Type.MIN) { // The parent is a MAX node
+				utility = alpha_beta(game_state, ply, remaining_depth - reduction, type, alpha, Math.nextUp(alpha));
+
+				if (utility <= alpha || aborted)
+					return utility;
+			} else { // The parent is a MIN node
+				utility = alpha_beta(game_state, ply, remaining_depth - reduction, type, Math.nextDown(beta), beta);
+
+				if (utility >= beta || aborted)
+					return utility;
+			}
+		}
+
+		if (!principal_variation_search || first_child)
+			return alpha_beta(game_state, ply, remaining_depth, type, alpha, beta);
+
+		if (type == Type.MIN) { // The parent is a MAX node: can the child beat alpha?
+			utility = alpha_beta(game_state, ply, remaining_depth, type, alpha, Math.nextUp(alpha));
+
+			if (utility > alpha && utility < beta && !aborted)
+				utility = Math.max(utility, alpha_beta(game_state, ply, remaining_depth, type, utility, beta));
+		} else { // The parent is a MIN node: can the child get below beta?
+			utility = alpha_beta(game_state, ply, remaining_depth, type, Math.nextDown(beta), beta);
+
+			if (utility < beta && utility > alpha && !aborted)
+				utility = Math.min(utility, alpha_beta(game_state, ply, remaining_depth, type, alpha, utility));
+		}
+
+		return utility;
+	}
+
+	/**
+	 * Searches the moves of the root to the current search depth, within the
+	 * window (alpha, beta). The score of the best move (or, if no move beats
+	 * alpha, an upper bound of it) is left in root_score.
+	 *
+	 * @param search_state The game state of the root, left unchanged.
+	 * @param count        The number of moves of the root, in moves[0].
+	 * @param first_move   The move to search first when the moves are ordered,
+	 *                     or -1 if there is none.
+	 * @param alpha        The lower bound of the window.
+	 * @param beta         The upper bound of the window.
+	 * @return the index of the best move, or -1 if the search was aborted or
+	 *         no move beats alpha.
+	 */
+	private int search_root(GameState search_state, int count, int first_move, float alpha, float beta) {
+		if (pool != null && parallelism == Parallelism.ROOT_SPLIT && count > 1)
+			return search_root_parallel(search_state, count, first_move, alpha, beta);
+
+		int[] available_tiles = moves[0];
+		int best_move = -1;
+
+		root_score = Float.NEGATIVE_INFINITY;
+
+		if (move_ordering)
+			order_moves(search_state, maximized_player, 0, count, first_move);
+
+		for (int n = 0; n < count; n++) {
+			int i = move_ordering ? n : count - 1 - n; // Unordered, the same tie-break as the breadth-first search
+
+			search_state.make_move(maximized_player, available_tiles[i]);
+			float utility = search_child(search_state, 1, search_depth - 1, Type.MIN, alpha, beta, n == 0, 0);
+			search_state.unmake_move();
+
+			if (aborted)
+				return -1;
+
+			root_score = Math.max(root_score, utility);
+
+			if (utility > alpha) {
+				alpha = utility;
+				best_move = available_tiles[i];
+
+				if (utility >= beta)
+					break;
+			}
+		}
+
+		return best_move;
+	}
+
+	/**
+	 * Searches the moves of the root like {@link #search_root}, with the
+	 * moves after the first searched in parallel by the workers.
+	 *
+	 * @param search_state The game state of the root, left unchanged.
+	 * @param count        The number of moves of the root, in moves[0].
+	 * @param first_move   The move to search first when the moves are ordered,
+	 *                     or -1 if there is none.
+	 * @param alpha        The lower bound of the window.
+	 * @param beta         The upper bound of the window.
+	 * @return the index of the best move, or -1 if the search was aborted or
+	 *         no move beats alpha.
+	 */
+	private int search_root_parallel(GameState search_state, int count, int first_move, float alpha, float beta) {
+		int[] available_tiles = moves[0];
+		int[] tiles = new int[count];
+		float[] utilities = new float[count];
+		float[] bounds = new float[count];
+		AtomicInteger shared_alpha = new AtomicInteger();
+		List <ForkJoinTask <?>> tasks = new ArrayList <>(count - 1);
+
+		if (move_ordering)
+			order_moves(search_state, maximized_player, 0, count, first_move);
+
+		get_workers(8); // A Yoshi has at most 8 moves
+
+		for (int n = 0; n < count; n++)
+			tiles[n] = available_tiles[move_ordering ? n : count - 1 - n];
+
+		search_state.make_move(maximized_player, tiles[0]);
+		utilities[0] = search_child(search_state, 1, search_depth - 1, Type.MIN, alpha, beta, true, 0);
+		bounds[0] = alpha;
+		search_state.unmake_move();
+
+		if (aborted)
+			return -1;
+
+		shared_alpha.set(Float.floatToIntBits(Math.max(alpha, utilities[0])));
+
+		for (int n = 1; n < count && utilities[0] < beta; n++) {
+			Minimax worker = workers[n];
+			GameState worker_state = search_state.copy();
+			int task = n;
+
+			worker.start_worker(this);
+			worker_state.make_move(maximized_player, tiles[n]);
+
+			tasks.add(pool.submit(() -> {
+				float task_alpha = Float.intBitsToFloat(shared_alpha.get());
+				float utility = worker.search_child(worker_state, 1, search_depth - 1, Type.MIN, task_alpha, beta, false,
+						0);
+
+				bounds[task] = task_alpha;
+				utilities[task] = utility;
+
+				if (!worker.aborted)
+					shared_alpha.accumulateAndGet(Float.floatToIntBits(utility),
+							(best, bits) -> Float.intBitsToFloat(bits) > Float.intBitsToFloat(best) ? bits : best);
+			}));
+		}
+
+		for (ForkJoinTask <?> task : tasks)
+			task.join();
+
+		for (int n = 1; n <= tasks.size(); n++) {
+			nodes += workers[n].nodes;
+			aborted |= workers[n].aborted;
+			depth_limited |= workers[n].depth_limited;
+		}
+
+		if (aborted)
+			return -1;
+
+		int best_move = -1;
+		float best_score = alpha;
+
+		root_score = Float.NEGATIVE_INFINITY;
+
+		for (int n = 0; n <= tasks.size(); n++) {
+			root_score = Math.max(root_score, utilities[n]);
+
+			if (utilities[n] > bounds[n] && utilities[n] > best_score) { // Otherwise only an upper bound
+				best_score = utilities[n];
+				best_move = tiles[n];
+			}
+		}
+
+		return best_move;
+	}
+
+	/**
+	 * Prepares a worker for a search of the given engine: copies its options,
+	 * depth and deadline, and resets the counters of the worker.
+	 *
+	 * @param engine The engine the worker searches for.
+	 */
+	private void start_worker(Minimax engine) {
+		move_ordering = engine.move_ordering;
+		batch_evaluation = engine.batch_evaluation;
+		principal_variation_search = engine.principal_variation_search;
+		late_move_reductions = engine.late_move_reductions;
+		pass_extensions = engine.pass_extensions;
+		transposition_table = engine.transposition_table;
+		tablebase = engine.tablebase;
+		search_depth = engine.search_depth;
+		deadline = engine.deadline;
+		probe_deadline = engine.probe_deadline;
+		stop_requested = engine.stop_requested;
+		nodes = 0;
+		aborted = false;
+		depth_limited = false;
+
+		if (engine.endgame_solver == null)
+			endgame_solver = null;
+		else if (endgame_solver == null) // Every worker solves with its own memo table
+			endgame_solver = new EndgameSolver(game.get_board());
+
+		ensure_capacity(search_depth);
+	}
+
+	/**
+	 * Starts the helper threads of a Lazy SMP search, one fewer than the
+	 * number of threads, each deepening iteratively from the given game state
+	 * until it is stopped.
+	 *
+	 * @param game_state The game state of the root.
+	 * @return the tasks of the helpers.
+	 */
+	private List <ForkJoinTask <?>> start_helpers(GameState game_state) {
+		List <ForkJoinTask <?>> tasks = new ArrayList <>(threads - 1);
+
+		get_workers(threads - 1);
+
+		for (int i = 0; i < threads - 1; i++) {
+			Minimax helper = workers[i];
+			GameState helper_state = game_state.copy();
+			int index = i + 1;
+
+			helper.start_worker(this);
+			helper.deadline = Long.MAX_VALUE; // Only stopped by this thread
+
+			tasks.add(pool.submit(() -> helper.run_helper(helper_state, index)));
+		}
+
+		return tasks;
+	}
+
+	/**
+	 * Stops the helper threads of a Lazy SMP search, waits for them, and adds
+	 * the nodes they visited to the nodes of the search.
+	 *
+	 * @param tasks The tasks of the helpers.
+	 */
+	private void stop_helpers(List <ForkJoinTask <?>> tasks) {
+		for (int i = 0; i < tasks.size(); i++)
+			workers[i].stop_requested = true;
+
+		for (int i = 0; i < tasks.size(); i++) {
+			tasks.get(i).join();
+			nodes += workers[i].nodes;
+		}
+	}
+
+	/**
+	 * Deepens iteratively from the given game state until the helper is
+	 * stopped or the tree is fully searched. The moves it finds are thrown
+	 * away; what matters are the results it leaves in the transposition
+	 * table.
+	 *
+	 * @param game_state The game state of the root, owned by the helper.
+	 * @param index      The number of the helper (from 1), which decides its
+	 *                   first depth and the order of its root moves.
+	 */
+	private void run_helper(GameState game_state, int index) {
+		int[] root_moves = moves[0];
+		int count = game.get_available_tiles(game_state.get_square(maximized_player), game_state, root_moves);
+		int best_move = -1;
+
+		int[] generated_moves = Arrays.copyOf(root_moves, count);
+
+		for (int i = 0; i < count; i++) // Rotating the root moves sends every helper down a different first line
+			root_moves[i] = generated_moves[(i + index) % count];
+
+		for (int depth = 1 + index % 2; !aborted; depth++) {
+			ensure_capacity(depth);
+
+			search_depth = depth;
+			depth_limited = false;
+
+			int move = search_root(game_state, count, best_move, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY);
+
+			if (!aborted) {
+				best_move = move;
+
+				if (!depth_limited)
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Returns the workers of the engine, creating them the first time or
+	 * when more are needed.
+	 *
+	 * @param count The number of workers needed.
+	 * @return the workers.
+	 */
+	private Minimax[] get_workers(int count) {
+		if (workers == null || workers.length < count) {
+			Minimax[] new_workers = new Minimax[count];
+
+			for (int i = 0; i < count; i++)
+				new_workers[i] = new Minimax(this);
+
+			workers = new_workers;
+		}
+
+		return workers;
+	}
+
+	/**
+	 * Executes the alpha-beta search to determine the best move, deepening
+	 * iteratively until the budget runs out or the game tree is solved when
+	 * there is a time budget.
+	 *
+	 * @param game_state  The current game state.
+	 * @param time_budget The time budget in milliseconds, or 0 to search to
+	 *                    the depth of the difficulty.
+	 * @return the best move, or null if the game is finished.
+	 */
+	private Coordinate run_alpha_beta(GameState game_state, long time_budget) {
+		nodes = 1;
+		completed_depth = 0;
+		aborted = false;
+		deadline = 0;
+		stop_requested = false;
+
+		if (max_depth == 0 || game.is_game_finished(game_state))
+			return null;
+
+		long start = System.nanoTime();
+		boolean lazy_smp = pool != null && parallelism == Parallelism.LAZY_SMP;
+
+		deadline = time_budget > 0 ? start + time_budget * 1_000_000 : 0;
+		probe_deadline = deadline;
+
+		if (lazy_smp && transposition_table == null)
+			transposition_table = new TranspositionTable(16);
+
+		if (transposition_table != null)
+			transposition_table.new_search();
+
+		for (int[] killers : killer_moves)
+			Arrays.fill(killers, -1);
+
+		for (int[] player_history : history)
+			for (int i = 0; i < player_history.length; i++)
+				player_history[i] /= 2; // Older cutoffs count less
+
+		GameState search_state = game_state.copy();
+		int count = game.get_available_tiles(search_state.get_square(maximized_player), search_state, moves[0]);
+
+		if (count == 0) // The maximized player can only let the opponent move
+			return game_state.get_player(maximized_player);
+
+		int best_move = -1;
+		float[] scores = new float[2]; // The scores of the last two iterations
+		List <ForkJoinTask <?>> helpers = lazy_smp ? start_helpers(game_state) : null;
+
+		if (time_budget <= 0 && !lazy_smp) {
+			ensure_capacity(max_depth);
+
+			search_depth = max_depth;
+			best_move = search_root(search_state, count, -1, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY);
+			completed_depth = max_depth;
+			score = root_score;
+		} else
+			for (int depth = 1; !aborted && (time_budget > 0 || depth <= max_depth); depth++) {
+				ensure_capacity(depth);
+
+				search_depth = depth;
+				depth_limited = false;
+
+				float alpha = Float.NEGATIVE_INFINITY;
+				float beta = Float.POSITIVE_INFINITY;
+
+				if (aspiration_window > 0 && completed_depth > 1) { // The score swings between odd and even depths
+					alpha = scores[depth % 2] - aspiration_window;
+					beta = scores[depth % 2] + aspiration_window;
+				}
+
+				int move = search_root(search_state, count, best_move, alpha, beta);
+
+				while (!aborted && (root_score <= alpha || root_score >= beta)) {
+					if (root_score <= alpha) // Every move failed low: the score is below the window
+						alpha = Float.NEGATIVE_INFINITY;
+					else // A move failed high: the score is above the window
+						beta = Float.POSITIVE_INFINITY;
+
+					move = search_root(search_state, count, best_move, alpha, beta);
+				}
+
+				if (!aborted) {
+					best_move = move;
+					completed_depth = depth;
+					score = root_score;
+					scores[depth % 2] = root_score;
+
+					if (!depth_limited)
+						break;
+				}
+
+				if (time_budget > 0 && (stop_requested || System.nanoTime() > deadline))
+					break;
+			}
+
+		if (helpers != null)
+			stop_helpers(helpers);
+
+		if (best_move == -1) // Not even the first iteration completed: the first root move in search order
+			best_move = moves[0][0];
+
+		return game.get_board().get_coordinate(best_move);
+	}
+
+	/**
+	 * Executes the search algorithm to determine the best move, unless the
+	 * opening book has the game state, in which case its move is returned
+	 * without searching.
+	 *
+	 * @param game_state The current game state.
+	 * @return the best move determined by the search algorithm.
+	 */
+	public Coordinate run(GameState game_state) {
+		Coordinate book_move = opening_book == null ? null : opening_book.probe(game_state, maximized_player);
+
+		if (book_move != null) {
+			nodes = 0;
+			completed_depth = 0;
+
+			return book_move;
+		} else if (algorithm == Algorithm.MINIMAX)
+			return run_minimax(game_state);
+		else if (time_manager == null)
+			return run_alpha_beta(game_state, time_budget);
+
+		long start = System.nanoTime();
+		Coordinate best_move = run_alpha_beta(game_state, time_manager.allocate(game_state));
+
+		time_manager.consume((System.nanoTime() - start + 999_999) / 1_000_000); // Rounded up, so the clock never gains
+
+		return best_move;
+	}
+
 	/**
 	 * Executes the Minimax algorithm to determine the best move.
 	 *
+	 * The whole tree is expanded breadth first and the utilities are then
+	 * propagated from the leaves up to the root.
+	 *
 	 * @param game_state The current game state.
 	 * @return the best move determined by the Minimax algorithm.
 	 */
-	public Coordinate run(GameState game_state) {
+	private Coordinate run_minimax(GameState game_state) {
+		nodes = 0;
 		root = new Node(game_state, null, 0, Type.MAX);
 
 		list.add(root);
@@ -125,4 +1369,22 @@ public class Minimax {
 
 		return best_move;
 	}
+
+
+	/**
+	 * Represents the algorithms available to search the game tree.
+	 */
+	static public enum Algorithm {
+		MINIMAX,
+		ALPHA_BETA
+	}
+
+
+	/**
+	 * Represents the ways several threads can share a search.
+	 */
+	static public enum Parallelism {
+		ROOT_SPLIT, // The moves of the root are searched in parallel
+		LAZY_SMP // Every thread searches the whole tree, sharing the transposition table
+	}
 }
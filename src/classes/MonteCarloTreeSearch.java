@@ -0,0 +1,445 @@
+package src.classes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import src.classes.GameState.Player;
+
+
+public class MonteCarloTreeSearch implements Engine {
+	private static final int TREE_NODES = 1 << 21; // Nodes of the tree, about 30 MB
+	private static final int DEFAULT_PLAYOUTS = 20_000; // Playouts of a move when there is no time budget
+	private static final int VIRTUAL_LOSS = 3; // Lost playouts counted in a node while a thread goes through it
+	private static final double EXPLORATION = 1.0; // Weight of the exploration term of UCT
+	private static final int GREEDY_PERCENT = 90; // Guided playout moves chosen by mobility, the others at random
+	private static final int UNEXPANDED = 0; // First child of a leaf (the root is never a child)
+	private static final int EXPANDING = -1; // First child of a leaf that a thread is expanding
+	private static final int PASS = -1; // Move of a child whose player could not move
+
+	private Game game;
+	private Board board;
+	private Player maximized_player;
+	private byte[] moves = null; // The arrays of the tree are allocated by the first search
+	private byte[] child_counts;
+	private AtomicIntegerArray first_children; // The children of a node are consecutive
+	private AtomicIntegerArray visits;
+	private AtomicIntegerArray rewards;
+	private AtomicInteger size = new AtomicInteger();
+	private AtomicLong playouts = new AtomicLong();
+	private long playout_budget = DEFAULT_PLAYOUTS;
+	private long time_budget = 0;
+	private long deadline;
+	private long elapsed_time;
+	private boolean guided_playouts = false;
+	private Random random = new Random();
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private ForkJoinPool pool = null; // Created by the first search with several threads
+
+
+	public MonteCarloTreeSearch(Game game, Player maximizing_player) {
+		this.game = game;
+
+		board = game.get_board();
+		maximized_player = maximizing_player;
+	}
+
+
+	/**
+	 * Returns the number of playouts of each call to run.
+	 *
+	 * @return the playout budget, or 0 if only the time budget limits the
+	 *         search.
+	 */
+	public long get_playout_budget() {
+		return playout_budget;
+	}
+
+	/**
+	 * Sets the number of playouts of each call to run. When a time budget is
+	 * also set, the search stops at whichever runs out first.
+	 *
+	 * @param playout_budget the playout budget, or 0 to only be limited by the
+	 *                       time budget.
+	 */
+	public void set_playout_budget(long playout_budget) {
+		this.playout_budget = playout_budget;
+	}
+
+	/**
+	 * Returns the time budget of each call to run.
+	 *
+	 * @return the time budget in milliseconds, or 0 if only the playout budget
+	 *         limits the search.
+	 */
+	public long get_time_budget() {
+		return time_budget;
+	}
+
+	/**
+	 * Sets the time budget of each call to run. When a playout budget is also
+	 * set, the search stops at whichever runs out first.
+	 *
+	 * @param time_budget the time budget in milliseconds, or 0 to only be
+	 *                    limited by the playout budget.
+	 */
+	public void set_time_budget(long time_budget) {
+		this.time_budget = time_budget;
+	}
+
+	/**
+	 * Returns whether the playouts are guided by mobility.
+	 *
+	 * @return true if the playouts are guided, false if they are random.
+	 */
+	public boolean get_guided_playouts() {
+		return guided_playouts;
+	}
+
+	/**
+	 * Sets whether most moves of the playouts go to the tile with the best
+	 * mobility for the player, rather than all being random.
+	 *
+	 * @param guided_playouts true to guide the playouts, false for random
+	 *                        ones.
+	 */
+	public void set_guided_playouts(boolean guided_playouts) {
+		this.guided_playouts = guided_playouts;
+	}
+
+	/**
+	 * Sets the seed of the random playouts. With the same seed, one thread and
+	 * no time budget, a search always returns the same move.
+	 *
+	 * @param seed the seed.
+	 */
+	public void set_seed(long seed) {
+		random = new Random(seed);
+	}
+
+	/**
+	 * Returns the number of threads that run playouts.
+	 *
+	 * @return the number of threads.
+	 */
+	public int get_threads() {
+		return threads;
+	}
+
+	/**
+	 * Sets the number of threads that run playouts on the shared tree, all
+	 * the available processors by default.
+	 *
+	 * @param threads the number of threads (at least 1).
+	 */
+	public void set_threads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Error: the number of threads must be at least 1");
+
+		if (pool != null)
+			pool.shutdown();
+
+		this.threads = threads;
+
+		pool = null;
+	}
+
+	/**
+	 * Returns the number of playouts run by the last call to run.
+	 *
+	 * @return the number of playouts.
+	 */
+	public long get_playouts() {
+		return playouts.get();
+	}
+
+	/**
+	 * Returns the number of playouts run per second by the last call to run.
+	 *
+	 * @return the playout rate.
+	 */
+	public double get_playouts_per_second() {
+		return elapsed_time == 0 ? 0 : playouts.get() * 1e9 / elapsed_time;
+	}
+
+	/**
+	 * Returns the number of nodes of the tree built by the last call to run.
+	 *
+	 * @return the number of nodes.
+	 */
+	public int get_tree_size() {
+		return size.get();
+	}
+
+	/**
+	 * Chooses a move by Monte Carlo tree search with UCT: the root child with
+	 * the most playouts once the budget is spent.
+	 *
+	 * @param game_state The current game state.
+	 * @return the most visited move.
+	 */
+	public Coordinate run(GameState game_state) {
+		long start = System.nanoTime();
+
+		playouts.set(0);
+		elapsed_time = 0;
+
+		if (game.is_game_finished(game_state))
+			return null;
+		else if (game.get_available_count(game_state.get_square(maximized_player), game_state) == 0)
+			return game_state.get_player(maximized_player); // The maximized player can only let the opponent move
+
+		if (moves == null) {
+			moves = new byte[TREE_NODES];
+			child_counts = new byte[TREE_NODES];
+			first_children = new AtomicIntegerArray(TREE_NODES);
+			visits = new AtomicIntegerArray(TREE_NODES);
+			rewards = new AtomicIntegerArray(TREE_NODES);
+		}
+
+		if (pool == null && threads > 1)
+			pool = new ForkJoinPool(threads - 1);
+
+		size.set(1);
+		first_children.set(0, UNEXPANDED);
+		visits.set(0, 0);
+		rewards.set(0, 0);
+		expand(0, game_state, maximized_player, new int[8]);
+
+		deadline = time_budget > 0 ? start + time_budget * 1_000_000 : Long.MAX_VALUE;
+
+		List <ForkJoinTask <?>> helpers = new ArrayList <>(threads - 1);
+
+		for (int i = 1; i < threads; i++) {
+			GameState helper_state = game_state.copy();
+			long seed = random.nextLong();
+
+			helpers.add(pool.submit(() -> run_playouts(helper_state, seed)));
+		}
+
+		run_playouts(game_state.copy(), random.nextLong());
+
+		for (ForkJoinTask <?> helper : helpers)
+			helper.join();
+
+		elapsed_time = System.nanoTime() - start;
+
+		int first = first_children.get(0);
+		int best_child = first;
+
+		for (int child = first + 1; child < first + child_counts[0]; child++)
+			if (visits.get(child) > visits.get(best_child))
+				best_child = child;
+
+		return board.get_coordinate(moves[best_child]);
+	}
+
+	/**
+	 * Runs playouts from the root until the budget runs out.
+	 *
+	 * @param game_state The game state of the root, owned by the thread.
+	 * @param seed       The seed of the random moves of the thread.
+	 */
+	private void run_playouts(GameState game_state, long seed) {
+		SplittableRandom playout_random = new SplittableRandom(seed);
+		int[] path = new int[board.get_size() * 2];
+		int[] available_tiles = new int[8];
+
+		while ((playout_budget == 0 || playouts.get() < playout_budget) &&
+				(time_budget == 0 || System.nanoTime() < deadline)) {
+			Player player = maximized_player;
+			int node = 0;
+			int depth = 0;
+			int made_moves = 0;
+
+			visits.addAndGet(node, VIRTUAL_LOSS);
+
+			while (true) {
+				int first = first_children.get(node);
+
+				if (first == UNEXPANDED && visits.get(node) > VIRTUAL_LOSS) // Visited by an earlier playout
+					first = expand(node, game_state, player, available_tiles);
+
+				if (first <= 0)
+					break;
+
+				node = select(node, first);
+				path[++depth] = node;
+				visits.addAndGet(node, VIRTUAL_LOSS);
+
+				if (moves[node] != PASS) {
+					game_state.make_move(player, moves[node]);
+					made_moves++;
+				}
+
+				player = player == Player.GREEN ? Player.RED : Player.GREEN;
+			}
+
+			Player winner = play_out(game_state, player, playout_random, available_tiles);
+
+			for (int i = depth; i >= 0; i--) {
+				node = path[i];
+				player = player == Player.GREEN ? Player.RED : Player.GREEN; // The player who moved into the node
+
+				rewards.addAndGet(node, winner == null ? 1 : winner == player ? 2 : 0);
+				visits.addAndGet(node, 1 - VIRTUAL_LOSS);
+			}
+
+			for (int i = 0; i < made_moves; i++)
+				game_state.unmake_move();
+
+			playouts.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Adds the children of a leaf to the tree, unless the game is over in it,
+	 * another thread is already expanding it, or the tree is full.
+	 *
+	 * @param node            The leaf.
+	 * @param game_state      The game state of the leaf.
+	 * @param player          The player to move.
+	 * @param available_tiles An array with room for at least 8 indices.
+	 * @return the first child of the leaf, or a number below 1 if it was not
+	 *         expanded.
+	 */
+	private int expand(int node, GameState game_state, Player player, int[] available_tiles) {
+		if (game.is_game_finished(game_state) || !first_children.compareAndSet(node, UNEXPANDED, EXPANDING))
+			return UNEXPANDED;
+
+		int count = game.get_available_tiles(game_state.get_square(player), game_state, available_tiles);
+		int children = Math.max(count, 1);
+		int first;
+
+		do { // Claims the slots of the children, unless they would not fit
+			first = size.get();
+
+			if (first + children > TREE_NODES) {
+				first_children.set(node, UNEXPANDED);
+				return UNEXPANDED;
+			}
+		} while (!size.compareAndSet(first, first + children));
+
+		for (int i = 0; i < children; i++) {
+			moves[first + i] = (byte) (count == 0 ? PASS : available_tiles[i]);
+			first_children.set(first + i, UNEXPANDED);
+			visits.set(first + i, 0);
+			rewards.set(first + i, 0);
+		}
+
+		child_counts[node] = (byte) children;
+		first_children.set(node, first); // Publishes the children to the other threads
+
+		return first;
+	}
+
+	/**
+	 * Returns the child of a node with the best upper confidence bound, or
+	 * its first child that has never been visited.
+	 *
+	 * @param node  A node with children.
+	 * @param first The first child of the node.
+	 * @return the selected child.
+	 */
+	private int select(int node, int first) {
+		double log_visits = Math.log(Math.max(visits.get(node), 1));
+		double best_value = Double.NEGATIVE_INFINITY;
+		int best_child = first;
+
+		for (int child = first; child < first + child_counts[node]; child++) {
+			int child_visits = visits.get(child);
+
+			if (child_visits == 0)
+				return child;
+
+			double value = rewards.get(child) / (2.0 * child_visits) +
+					EXPLORATION * Math.sqrt(log_visits / child_visits);
+
+			if (value > best_value) {
+				best_value = value;
+				best_child = child;
+			}
+		}
+
+		return best_child;
+	}
+
+	/**
+	 * Plays a game out to the end from a game state and then takes its moves
+	 * back.
+	 *
+	 * @param game_state      A game state, left unchanged.
+	 * @param player          The player to move.
+	 * @param playout_random  The random numbers of the thread.
+	 * @param available_tiles An array with room for at least 8 indices.
+	 * @return the winner of the game, or null for a tie.
+	 */
+	private Player play_out(GameState game_state, Player player, SplittableRandom playout_random,
+			int[] available_tiles) {
+		int made_moves = 0;
+		boolean passed = false;
+
+		while (true) {
+			int count = game.get_available_tiles(game_state.get_square(player), game_state, available_tiles);
+
+			if (count > 0) {
+				int move = available_tiles[playout_random.nextInt(count)];
+
+				if (guided_playouts && count > 1 && playout_random.nextInt(100) < GREEDY_PERCENT)
+					move = get_greedy_move(game_state, player, available_tiles, count);
+
+				game_state.make_move(player, move);
+				made_moves++;
+				passed = false;
+			} else if (passed) // Neither player can move
+				break;
+			else
+				passed = true;
+
+			player = player == Player.GREEN ? Player.RED : Player.GREEN;
+		}
+
+		Player winner = game.get_winner(game_state);
+
+		for (int i = 0; i < made_moves; i++)
+			game_state.unmake_move();
+
+		return winner;
+	}
+
+	/**
+	 * Returns the move that leaves the player the most onward moves minus the
+	 * moves left to the opponent, the mobility terms of Heuristic1.
+	 *
+	 * @param game_state      A game state.
+	 * @param player          The player to move.
+	 * @param available_tiles The moves of the player.
+	 * @param count           The number of moves.
+	 * @return the best move by mobility.
+	 */
+	private int get_greedy_move(GameState game_state, Player player, int[] available_tiles, int count) {
+		Player opponent = player == Player.GREEN ? Player.RED : Player.GREEN;
+		long opponent_moves = game.get_available_mask(game_state.get_square(opponent), game_state);
+		int best_move = available_tiles[0];
+		int best_score = Integer.MIN_VALUE;
+
+		for (int i = 0; i < count; i++) {
+			int move = available_tiles[i];
+			long remaining_moves = opponent_moves & ~(1L << move);
+			int score = game.get_available_count(move, game_state) - Long.bitCount(remaining_moves);
+
+			if (score > best_score) {
+				best_score = score;
+				best_move = move;
+			}
+		}
+
+		return best_move;
+	}
+}
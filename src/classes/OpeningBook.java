@@ -0,0 +1,249 @@
+package src.classes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import src.classes.Game.Difficulty;
+import src.classes.GameState.Player;
+import src.classes.heuristic.Heuristic1;
+
+
+public class OpeningBook {
+	private static final int MAGIC = 0x59_4F_42_31; // "YOB1"
+	private static final int HEADER_BYTES = 4 * Integer.BYTES + Long.BYTES;
+
+	private Board board;
+	private ByteBuffer buffer;
+	private int count;
+	private int max_tiles;
+
+
+	private OpeningBook(Board board, ByteBuffer buffer, int count, int plies) {
+		this.board = board;
+		this.buffer = buffer;
+		this.count = count;
+
+		max_tiles = 2 + plies - 1; // The tiles painted in the last position of the book
+	}
+
+
+	/**
+	 * Returns the canonical form of a position with the player to move as the
+	 * green Yoshi, so that positions that only differ by a symmetry of the
+	 * board or by the colours of the Yoshis share an entry of the book, and
+	 * the move of the entry is that of the green Yoshi.
+	 *
+	 * @param game_state A game state.
+	 * @param player     The player to move.
+	 * @return the canonical form of the position.
+	 */
+	private static CanonicalForm get_canonical_form(GameState game_state, Player player) {
+		return CanonicalForm.of(player == Player.GREEN ? game_state : game_state.transform(0, true), false);
+	}
+
+	/**
+	 * Searches every position reached in fewer than the given number of
+	 * moves from a starting position, to the given depth, and writes the best
+	 * move of each to a book.
+	 *
+	 * @param game  The game of the book.
+	 * @param depth The depth of the searches.
+	 * @param plies The number of moves of the opening (at least 1).
+	 * @param file  The file to write.
+	 * @return the number of positions written.
+	 */
+	public static int generate(Game game, int depth, int plies, Path file) {
+		if (plies < 1)
+			throw new IllegalArgumentException("Error: the opening must have at least 1 move");
+
+		Board board = game.get_board();
+		Map <Long, Byte> moves = new HashMap <>();
+		Game hard_game = new Game(Difficulty.HARD, board.get_rows(), board.get_columns());
+		Minimax minimax = new Minimax(new Heuristic1(Player.GREEN, hard_game), hard_game, Player.GREEN);
+
+		minimax.set_max_depth(depth);
+		minimax.set_move_ordering(true);
+		minimax.set_principal_variation_search(true);
+		minimax.set_transposition_table(new TranspositionTable(64));
+
+		for (int green = 0; green < board.get_size(); green++)
+			for (int red = 0; red < board.get_size(); red++)
+				if (green != red) // The red Yoshi to move is the same position with the colours swapped
+					add_positions(game, minimax, new GameState(board, green, red, 1L << green, 1L << red), plies, moves);
+
+		long[] keys = new long[moves.size()];
+		int n = 0;
+
+		for (long key : moves.keySet())
+			keys[n++] = key;
+
+		Arrays.sort(keys);
+
+		ByteBuffer contents = ByteBuffer.allocate(HEADER_BYTES + keys.length * (Long.BYTES + 1))
+				.order(ByteOrder.LITTLE_ENDIAN);
+
+		// The header, then the sorted keys as longs and the moves as bytes, all little-endian
+		contents.putInt(MAGIC).putInt(board.get_rows()).putInt(board.get_columns()).putInt(plies).putLong(keys.length);
+
+		for (long key : keys)
+			contents.putLong(key);
+
+		for (long key : keys)
+			contents.put(moves.get(key));
+
+		contents.flip();
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (contents.hasRemaining())
+				channel.write(contents);
+		} catch (IOException exception) {
+			throw new UncheckedIOException("Error: the opening book could not be written", exception);
+		}
+
+		return keys.length;
+	}
+
+	/**
+	 * Searches a position with the green Yoshi to move, unless its canonical
+	 * form is already in the book, and then the positions its moves lead to,
+	 * with the red Yoshi to move, until the opening has no moves left.
+	 *
+	 * @param game       The game of the book.
+	 * @param minimax    The engine that searches the positions, which plays
+	 *                   the green Yoshi.
+	 * @param game_state A game state with the green Yoshi to move.
+	 * @param plies      The number of moves left in the opening.
+	 * @param moves      The moves found so far, by key.
+	 */
+	private static void add_positions(Game game, Minimax minimax, GameState game_state, int plies,
+			Map <Long, Byte> moves) {
+		CanonicalForm canonical_form = get_canonical_form(game_state, Player.GREEN);
+		GameState canonical_state = canonical_form.get_game_state();
+		long key = canonical_state.get_hash();
+		int[] available_tiles = new int[8];
+		int count = game.get_available_tiles(game_state.get_square(Player.GREEN), game_state, available_tiles);
+
+		if (count == 0 || moves.containsKey(key)) // A Yoshi that can not move has nothing to look up
+			return;
+
+		moves.put(key, (byte) game.get_board().get_index(minimax.run(canonical_state)));
+
+		if (plies == 1)
+			return;
+
+		for (int i = 0; i < count; i++) {
+			GameState child_state = game_state.copy();
+
+			child_state.make_move(Player.GREEN, available_tiles[i]);
+			add_positions(game, minimax, child_state.transform(0, true), plies - 1, moves); // The red Yoshi to move
+		}
+	}
+
+	/**
+	 * Builds the opening book of a board from the command line.
+	 *
+	 * @param args The number of rows, the number of columns, the depth of the
+	 *             searches, the number of moves of the opening and the file to
+	 *             write.
+	 */
+	public static void main(String[] args) {
+		if (args.length != 5)
+			throw new IllegalArgumentException("Error: the arguments are the rows, the columns, the depth, the " +
+					"number of moves and the file");
+
+		Game game = new Game(Difficulty.HARD, Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+		long start = System.nanoTime();
+		int count = generate(game, Integer.parseInt(args[2]), Integer.parseInt(args[3]), Path.of(args[4]));
+
+		System.out.printf("%d positions searched in %.1f s%n", count, (System.nanoTime() - start) / 1e9);
+	}
+
+	/**
+	 * Maps an opening book into memory.
+	 *
+	 * @param board The board of the book.
+	 * @param file  A file written by {@link #generate(Game, int, int, Path)}.
+	 * @return the opening book.
+	 */
+	public static OpeningBook load(Board board, Path file) {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+					.order(ByteOrder.LITTLE_ENDIAN);
+
+			if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC)
+				throw new IllegalArgumentException("Error: the file is not an opening book");
+			else if (buffer.getInt(4) != board.get_rows() || buffer.getInt(8) != board.get_columns())
+				throw new IllegalArgumentException("Error: the opening book was built for another board");
+
+			long count = buffer.getLong(16);
+
+			if (buffer.capacity() != HEADER_BYTES + count * (Long.BYTES + 1))
+				throw new IllegalArgumentException("Error: the opening book file is truncated");
+
+			return new OpeningBook(board, buffer, (int) count, buffer.getInt(12));
+		} catch (IOException exception) {
+			throw new UncheckedIOException("Error: the opening book could not be read", exception);
+		}
+	}
+
+	/**
+	 * Returns the number of positions of the book.
+	 *
+	 * @return the number of positions.
+	 */
+	public int get_count() {
+		return count;
+	}
+
+	/**
+	 * Looks up the move of a position by a binary search over the sorted
+	 * keys. Positions with more painted tiles than the last position of the
+	 * opening are rejected before building the canonical form, so probing
+	 * costs nearly nothing once the game leaves the book.
+	 *
+	 * @param game_state A game state.
+	 * @param player     The player to move.
+	 * @return the move of the book, or null if the book does not have the
+	 *         position.
+	 */
+	public Coordinate probe(GameState game_state, Player player) {
+		if (game_state.get_tile_count(Player.GREEN) + game_state.get_tile_count(Player.RED) > max_tiles ||
+				game_state.get_square(Player.GREEN) < 0 || game_state.get_square(Player.RED) < 0)
+			return null;
+
+		CanonicalForm canonical_form = get_canonical_form(game_state, player);
+		long key = canonical_form.get_game_state().get_hash();
+		int low = 0;
+		int high = count - 1;
+
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			long middle_key = buffer.getLong(HEADER_BYTES + middle * Long.BYTES);
+
+			if (middle_key < key)
+				low = middle + 1;
+			else if (middle_key > key)
+				high = middle - 1;
+			else {
+				int move = canonical_form.from_canonical(buffer.get(HEADER_BYTES + count * Long.BYTES + middle));
+
+				// The keys are hashes, so make sure the move is legal before playing it
+				if ((board.get_knight_mask(game_state.get_square(player)) & game_state.get_mask(null) & (1L << move)) == 0)
+					return null;
+
+				return board.get_coordinate(move);
+			}
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,248 @@
+package src.classes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import src.classes.GameState.Player;
+
+
+public class Perft {
+	private static final int SPLIT_DEPTH = 4; // Smallest depth at which the parallel count forks a task per move
+
+	private Game game;
+
+
+	public Perft(Game game) {
+		this.game = game;
+	}
+
+
+	/**
+	 * Counts the leaves of the game tree of the given depth, built the same
+	 * way the Minimax search builds it: a node is a leaf when the game is
+	 * finished or the depth is reached, and a player with no free tile to
+	 * jump to passes, which takes a ply like any move.
+	 *
+	 * @param game_state The game state of the root, left unchanged.
+	 * @param player     The player to move.
+	 * @param depth      The depth of the tree.
+	 * @return the number of leaves.
+	 */
+	public long count(GameState game_state, Player player, int depth) {
+		if (depth < 0)
+			throw new IllegalArgumentException("Error: the depth can not be negative");
+
+		return count(game_state.copy(), player, depth, new int[Math.max(depth, 1)][8], null);
+	}
+
+	/**
+	 * Counts the leaves of the game tree of the given depth like
+	 * {@link #count(GameState, Player, int)}, with the subtrees near the root
+	 * counted in parallel as fork-join tasks.
+	 *
+	 * @param game_state The game state of the root, left unchanged.
+	 * @param player     The player to move.
+	 * @param depth      The depth of the tree.
+	 * @param threads    The number of threads (at least 1).
+	 * @return the number of leaves.
+	 */
+	public long count_parallel(GameState game_state, Player player, int depth, int threads) {
+		if (depth < 0)
+			throw new IllegalArgumentException("Error: the depth can not be negative");
+		else if (threads < 1)
+			throw new IllegalArgumentException("Error: the number of threads must be at least 1");
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+
+		try {
+			return pool.invoke(new CountTask(this, game_state.copy(), player, depth));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Counts the leaves of the game tree of the given depth like
+	 * {@link #count(GameState, Player, int)}, remembering the count of every
+	 * subtree in a hash table so that a position reached again by another
+	 * order of moves is only counted once.
+	 *
+	 * @param game_state The game state of the root, left unchanged.
+	 * @param player     The player to move.
+	 * @param depth      The depth of the tree.
+	 * @param megabytes  The size of the hash table in megabytes (between 1 and
+	 *                   1024).
+	 * @return the number of leaves.
+	 */
+	public long count_hashed(GameState game_state, Player player, int depth, int megabytes) {
+		if (depth < 0)
+			throw new IllegalArgumentException("Error: the depth can not be negative");
+
+		return count(game_state.copy(), player, depth, new int[Math.max(depth, 1)][8], new CountTable(megabytes));
+	}
+
+	/**
+	 * Counts the leaves below the given game state, making and unmaking the
+	 * moves in place.
+	 *
+	 * At depth 1 the children are not visited: each of them is a leaf, so
+	 * their number is the number of moves (or 1 for a pass).
+	 *
+	 * @param game_state A game state, left unchanged when the method returns.
+	 * @param player     The player to move.
+	 * @param depth      The remaining depth.
+	 * @param moves      A buffer of moves for every remaining depth.
+	 * @param table      The table of subtree counts, or null to count without
+	 *                   one.
+	 * @return the number of leaves.
+	 */
+	private long count(GameState game_state, Player player, int depth, int[][] moves, CountTable table) {
+		if (depth == 0 || game.is_game_finished(game_state))
+			return 1;
+
+		Player opponent = player == Player.GREEN ? Player.RED : Player.GREEN;
+		int[] available_tiles = moves[depth - 1];
+		int count = game.get_available_tiles(game_state.get_square(player), game_state, available_tiles);
+
+		if (depth == 1)
+			return Math.max(count, 1);
+		else if (count == 0) // The opponent moves again
+			return count(game_state, opponent, depth - 1, moves, table);
+
+		long key = game_state.get_hash() ^ game.get_board().get_turn_key(player);
+
+		if (table != null) {
+			long leaves = table.probe(key, depth);
+
+			if (leaves >= 0)
+				return leaves;
+		}
+
+		long leaves = 0;
+
+		for (int i = 0; i < count; i++) {
+			game_state.make_move(player, available_tiles[i]);
+			leaves += count(game_state, opponent, depth - 1, moves, table);
+			game_state.unmake_move();
+		}
+
+		if (table != null)
+			table.store(key, depth, leaves);
+
+		return leaves;
+	}
+
+
+	/**
+	 * Counts the leaves below a game state, forking a task per move while the
+	 * remaining depth is large enough for the task to be worth it. Tasks are
+	 * never serialized, so their fields are transient.
+	 */
+	private static class CountTask extends RecursiveTask <Long> {
+		private static final long serialVersionUID = 1L;
+
+		private transient Perft perft;
+		private transient GameState game_state;
+		private transient Player player;
+		private transient int depth;
+
+
+		public CountTask(Perft perft, GameState game_state, Player player, int depth) {
+			this.perft = perft;
+			this.game_state = game_state;
+			this.player = player;
+			this.depth = depth;
+		}
+
+
+		/**
+		 * Counts the leaves below the game state of the task.
+		 *
+		 * @return the number of leaves.
+		 */
+		@Override
+		protected Long compute() {
+			if (depth < SPLIT_DEPTH || perft.game.is_game_finished(game_state))
+				return perft.count(game_state, player, depth, new int[Math.max(depth, 1)][8], null);
+
+			Player opponent = player == Player.GREEN ? Player.RED : Player.GREEN;
+			int[] available_tiles = new int[8];
+			int count = perft.game.get_available_tiles(game_state.get_square(player), game_state, available_tiles);
+
+			if (count == 0) // The opponent moves again
+				return new CountTask(perft, game_state, opponent, depth - 1).compute();
+
+			List <CountTask> tasks = new ArrayList <>(count);
+
+			for (int i = 0; i < count; i++) {
+				GameState child_state = game_state.copy();
+
+				child_state.make_move(player, available_tiles[i]);
+				tasks.add(new CountTask(perft, child_state, opponent, depth - 1));
+			}
+
+			long leaves = 0;
+
+			for (CountTask task : invokeAll(tasks))
+				leaves += task.join();
+
+			return leaves;
+		}
+	}
+
+
+	/**
+	 * Remembers the number of leaves below positions, one entry per slot, the
+	 * newest entry replacing the oldest.
+	 */
+	private static class CountTable {
+		private long[] keys;
+		private long[] leaves;
+		private byte[] depths;
+		private int mask;
+
+
+		public CountTable(int megabytes) {
+			if (megabytes < 1 || megabytes > 1024)
+				throw new IllegalArgumentException("Error: the size of the table must be between 1 and 1024 MB");
+
+			int capacity = Integer.highestOneBit((int) (((long) megabytes << 20) / (2 * Long.BYTES + 1)));
+
+			keys = new long[capacity];
+			leaves = new long[capacity];
+			depths = new byte[capacity];
+			mask = capacity - 1;
+		}
+
+
+		/**
+		 * Returns the number of leaves stored for a position and depth.
+		 *
+		 * @param key   The hash of the position and the player to move.
+		 * @param depth The remaining depth (at least 2).
+		 * @return the number of leaves, or -1 if the table does not have it.
+		 */
+		public long probe(long key, int depth) {
+			int index = (int) key & mask;
+
+			return keys[index] == key && depths[index] == (byte) depth ? leaves[index] : -1;
+		}
+
+		/**
+		 * Stores the number of leaves of a position and depth.
+		 *
+		 * @param key    The hash of the position and the player to move.
+		 * @param depth  The remaining depth (at least 2).
+		 * @param leaves The number of leaves.
+		 */
+		public void store(long key, int depth, long leaves) {
+			int index = (int) key & mask;
+
+			keys[index] = key;
+			depths[index] = (byte) depth;
+			this.leaves[index] = leaves;
+		}
+	}
+}
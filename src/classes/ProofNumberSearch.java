@@ -0,0 +1,459 @@
+package src.classes;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import src.classes.Game.Difficulty;
+import src.classes.GameState.Player;
+
+
+public class ProofNumberSearch {
+	private static final int INFINITE = Integer.MAX_VALUE / 2; // Proof or disproof number of a settled node
+	private static final int MAX_REGION = 24; // Larger regions cost the endgame solver more than searching them
+	private static final int MAX_PLIES = 2 * Long.SIZE + 2; // Every move paints a tile, and a pass is followed by a move
+
+	private Game game;
+	private Board board;
+	private EndgameSolver endgame_solver;
+	private ProofTable table;
+	private int[][] moves = new int[MAX_PLIES][8];
+	private Player attacker;
+	private int threshold;
+	private long node_limit = 0;
+	private long nodes;
+	private long elapsed_time;
+	private long proof_size;
+	private boolean aborted;
+
+
+	/**
+	 * Constructs a solver with a hash table of fixed size.
+	 *
+	 * @param game      The game of the positions to solve.
+	 * @param megabytes The size of the hash table in megabytes (between 1 and
+	 *                  1024).
+	 */
+	public ProofNumberSearch(Game game, int megabytes) {
+		this.game = game;
+
+		board = game.get_board();
+		endgame_solver = new EndgameSolver(board, MAX_REGION);
+		table = new ProofTable(megabytes);
+	}
+
+
+	/**
+	 * Solves a position from the command line: the starting position of a
+	 * seed, followed by random moves of the same seed, the green Yoshi first.
+	 *
+	 * @param args The number of rows, the number of columns, the seed and the
+	 *             number of moves.
+	 */
+	public static void main(String[] args) {
+		if (args.length != 4)
+			throw new IllegalArgumentException("Error: the arguments are the rows, the columns, the seed and the " +
+					"number of moves");
+
+		Game game = new Game(Difficulty.HARD, Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+		long seed = Long.parseLong(args[2]);
+		Random random = new Random(seed);
+		GameState game_state = game.build_initial_game_state(seed);
+		Player player = Player.GREEN;
+		int[] available_tiles = new int[8];
+
+		for (int i = Integer.parseInt(args[3]); i > 0 && !game.is_game_finished(game_state); i--) {
+			int count = game.get_available_tiles(game_state.get_square(player), game_state, available_tiles);
+
+			if (count > 0)
+				game_state.make_move(player, available_tiles[random.nextInt(count)]);
+
+			player = player == Player.GREEN ? Player.RED : Player.GREEN;
+		}
+
+		ProofNumberSearch proof_number_search = new ProofNumberSearch(game, 64);
+		Result result = proof_number_search.solve(game_state, player);
+
+		System.out.printf("%s to move: %s, %d nodes at %.0f nodes/s, proof of %d positions%n", player, result,
+				proof_number_search.get_nodes(), proof_number_search.get_nodes_per_second(),
+				proof_number_search.get_proof_size());
+	}
+
+	/**
+	 * Returns the largest number of nodes a call to solve may visit.
+	 *
+	 * @return the node limit, or 0 if there is none.
+	 */
+	public long get_node_limit() {
+		return node_limit;
+	}
+
+	/**
+	 * Sets the largest number of nodes a call to solve may visit, after which
+	 * it gives up and returns UNKNOWN.
+	 *
+	 * @param node_limit the node limit, or 0 for none.
+	 */
+	public void set_node_limit(long node_limit) {
+		this.node_limit = node_limit;
+	}
+
+	/**
+	 * Returns the number of nodes visited by the last call to solve.
+	 *
+	 * @return the number of nodes.
+	 */
+	public long get_nodes() {
+		return nodes;
+	}
+
+	/**
+	 * Returns the number of nodes visited per second by the last call to
+	 * solve.
+	 *
+	 * @return the node rate.
+	 */
+	public double get_nodes_per_second() {
+		return elapsed_time == 0 ? 0 : nodes * 1e9 / elapsed_time;
+	}
+
+	/**
+	 * Returns the number of distinct positions of the last proof found by
+	 * solve, counting a position no longer in the table as one.
+	 *
+	 * @return the size of the proof, or 0 if the last call to solve did not
+	 *         find one.
+	 */
+	public long get_proof_size() {
+		return proof_size;
+	}
+
+	/**
+	 * Solves a position: finds whether the player to move wins, ties or
+	 * loses it when both players play perfectly.
+	 *
+	 * @param game_state The game state, left unchanged.
+	 * @param player     The player to move.
+	 * @return the result for the player to move, or UNKNOWN if the node limit
+	 *         was reached.
+	 */
+	public Result solve(GameState game_state, Player player) {
+		long start = System.nanoTime();
+		Result result;
+
+		nodes = 0;
+		proof_size = 0;
+		aborted = false;
+
+		GameState search_state = game_state.copy();
+
+		if (prove(search_state, player, 0)) // A win, then at least a tie, as df-pn only answers yes or no
+			result = Result.WIN;
+		else if (aborted)
+			result = Result.UNKNOWN;
+		else if (prove(search_state, player, -1))
+			result = Result.TIE;
+		else
+			result = aborted ? Result.UNKNOWN : Result.LOSS;
+
+		elapsed_time = System.nanoTime() - start;
+
+		if (result != Result.UNKNOWN)
+			proof_size = count_proof(search_state, player, new HashSet <>());
+
+		return result;
+	}
+
+	/**
+	 * Proves or disproves that the given player ends the game with more than
+	 * the given margin of tiles over the opponent.
+	 *
+	 * @param game_state The game state, left unchanged.
+	 * @param player     The player to move, who is the attacker.
+	 * @param margin     The margin to beat.
+	 * @return true if the margin is beaten with perfect play, false if it is
+	 *         not or the node limit was reached.
+	 */
+	private boolean prove(GameState game_state, Player player, int margin) {
+		attacker = player;
+		threshold = margin;
+
+		table.clear();
+		search(game_state, player, 0, INFINITE, INFINITE);
+
+		return !aborted && table.get_phi(table.find(get_key(game_state, player))) == 0;
+	}
+
+	/**
+	 * Returns the key of a position in the hash table.
+	 *
+	 * @param game_state A game state.
+	 * @param player     The player to move.
+	 * @return the key.
+	 */
+	private long get_key(GameState game_state, Player player) {
+		return game_state.get_hash() ^ board.get_turn_key(player);
+	}
+
+	/**
+	 * Settles a position without searching it, if the game is over or the
+	 * Yoshis are in separate regions.
+	 *
+	 * @param game_state A game state.
+	 * @param player     The player to move.
+	 * @return 1 if the question is settled in favour of the player to move,
+	 *         -1 if it is settled against them, or 0 if the position must be
+	 *         searched.
+	 */
+	private int evaluate(GameState game_state, Player player) {
+		int margin = endgame_solver.solve(game_state, attacker);
+
+		if (margin == EndgameSolver.UNKNOWN)
+			return 0;
+
+		return (margin > threshold) == (player == attacker) ? 1 : -1;
+	}
+
+	/**
+	 * Searches a position until its proof number reaches the given phi
+	 * threshold or its disproof number the given delta threshold, both from
+	 * the point of view of the player to move.
+	 *
+	 * @param game_state A game state, left unchanged when the method returns.
+	 * @param player     The player to move.
+	 * @param ply        The distance of the position from the root.
+	 * @param phi        The threshold of the proof number.
+	 * @param delta      The threshold of the disproof number.
+	 */
+	private void search(GameState game_state, Player player, int ply, int phi, int delta) {
+		long key = get_key(game_state, player);
+		long start_nodes = nodes++;
+
+		if (node_limit > 0 && nodes > node_limit) {
+			aborted = true;
+			return;
+		}
+
+		int result = evaluate(game_state, player);
+
+		if (result != 0) {
+			table.store(key, result > 0 ? 0 : INFINITE, result > 0 ? INFINITE : 0, 1);
+			return;
+		}
+
+		Player opponent = player == Player.GREEN ? Player.RED : Player.GREEN;
+		int[] available_tiles = moves[ply];
+		int count = game.get_available_tiles(game_state.get_square(player), game_state, available_tiles);
+
+		if (count == 0) { // The opponent moves again, with the question turned around
+			search(game_state, opponent, ply + 1, delta, phi);
+
+			int slot = table.find(get_key(game_state, opponent));
+
+			table.store(key, table.get_delta(slot), table.get_phi(slot), nodes - start_nodes);
+			return;
+		}
+
+		while (true) { // The phi of a node is the smallest delta of its children, its delta the sum of their phis
+			int node_phi = INFINITE;
+			int node_delta = 0;
+			int best_child = -1;
+			int best_phi = 0;
+			int second_delta = INFINITE;
+
+			for (int i = 0; i < count; i++) {
+				game_state.make_move(player, available_tiles[i]);
+				int slot = table.find(get_key(game_state, opponent));
+				int child_phi = 1;
+				int child_delta = 1;
+
+				if (slot >= 0) {
+					child_phi = table.get_phi(slot);
+					child_delta = table.get_delta(slot);
+				} else // A child with more moves takes more to refute
+					child_delta = Math.max(game.get_available_count(game_state.get_square(opponent), game_state), 1);
+
+				game_state.unmake_move();
+
+				node_delta = Math.min(node_delta + child_phi, INFINITE);
+
+				if (child_delta < node_phi) {
+					second_delta = node_phi;
+					node_phi = child_delta;
+					best_child = i;
+					best_phi = child_phi;
+				} else if (child_delta < second_delta)
+					second_delta = child_delta;
+			}
+
+			if (node_phi >= phi || node_delta >= delta || aborted) {
+				table.store(key, node_phi, node_delta, nodes - start_nodes);
+				return;
+			}
+
+			game_state.make_move(player, available_tiles[best_child]);
+			search(game_state, opponent, ply + 1, delta - (node_delta - best_phi),
+					Math.min(phi, second_delta + 1 + (second_delta >> 2)));
+			game_state.unmake_move();
+		}
+	}
+
+	/**
+	 * Counts the distinct positions of the proof below a position, following
+	 * the entries of the hash table: one winning move where the player to
+	 * move settles the question, and every move where they can not.
+	 *
+	 * @param game_state A game state, left unchanged when the method returns.
+	 * @param player     The player to move.
+	 * @param counted    The keys of the positions counted so far.
+	 * @return the number of positions counted.
+	 */
+	private long count_proof(GameState game_state, Player player, Set <Long> counted) {
+		long key = get_key(game_state, player);
+
+		if (!counted.add(key))
+			return 0;
+
+		int slot = table.find(key);
+		int phi = table.get_phi(slot);
+		int delta = table.get_delta(slot);
+
+		if ((phi != 0 && delta != 0) || evaluate(game_state, player) != 0)
+			return 1; // Settled without a search, or replaced in the table
+
+		Player opponent = player == Player.GREEN ? Player.RED : Player.GREEN;
+		int[] available_tiles = new int[8];
+		int count = game.get_available_tiles(game_state.get_square(player), game_state, available_tiles);
+
+		if (count == 0)
+			return 1 + count_proof(game_state, opponent, counted);
+
+		long size = 1;
+
+		for (int i = 0; i < count; i++) {
+			game_state.make_move(player, available_tiles[i]);
+			if (phi == 0 && table.get_delta(table.find(get_key(game_state, opponent))) == 0) { // A single winning move is enough
+				size += count_proof(game_state, opponent, counted);
+				game_state.unmake_move();
+				break;
+			} else if (delta == 0)
+				size += count_proof(game_state, opponent, counted);
+
+			game_state.unmake_move();
+		}
+
+		return size;
+	}
+
+
+	/**
+	 * Remembers the proof and disproof numbers of positions in a fixed amount
+	 * of memory. Every key may go to either slot of a bucket of two; a new
+	 * entry replaces the one whose subtree took fewer nodes to search, so the
+	 * most expensive results are the last to be lost.
+	 */
+	private static class ProofTable {
+		private static final int ENTRY_BYTES = Long.BYTES + 3 * Integer.BYTES;
+
+		private long[] keys;
+		private int[] phis;
+		private int[] deltas;
+		private int[] works;
+		private int mask;
+
+
+		public ProofTable(int megabytes) {
+			if (megabytes < 1 || megabytes > 1024)
+				throw new IllegalArgumentException("Error: the size of the table must be between 1 and 1024 MB");
+
+			int capacity = Integer.highestOneBit((int) (((long) megabytes << 20) / ENTRY_BYTES));
+
+			keys = new long[capacity];
+			phis = new int[capacity];
+			deltas = new int[capacity];
+			works = new int[capacity];
+			mask = capacity - 2; // The first slot of a bucket is always even
+		}
+
+
+		/**
+		 * Returns the slot of the table that holds a key.
+		 *
+		 * @param key A key.
+		 * @return the slot, or -1 if the table does not have the key.
+		 */
+		public int find(long key) {
+			int slot = (int) key & mask;
+
+			if (keys[slot] == key && works[slot] != 0)
+				return slot;
+			else if (keys[slot + 1] == key && works[slot + 1] != 0)
+				return slot + 1;
+
+			return -1;
+		}
+
+		/**
+		 * Returns the proof number stored in a slot.
+		 *
+		 * @param slot A slot returned by {@link #find(long)}.
+		 * @return the proof number, or 1 if the slot is -1.
+		 */
+		public int get_phi(int slot) {
+			return slot < 0 ? 1 : phis[slot];
+		}
+
+		/**
+		 * Returns the disproof number stored in a slot.
+		 *
+		 * @param slot A slot returned by {@link #find(long)}.
+		 * @return the disproof number, or 1 if the slot is -1.
+		 */
+		public int get_delta(int slot) {
+			return slot < 0 ? 1 : deltas[slot];
+		}
+
+		/**
+		 * Stores the proof and disproof numbers of a key.
+		 *
+		 * @param key   A key.
+		 * @param phi   The proof number.
+		 * @param delta The disproof number.
+		 * @param work  The number of nodes the search of the key took.
+		 */
+		public void store(long key, int phi, int delta, long work) {
+			int slot = find(key);
+
+			if (slot < 0) {
+				slot = (int) key & mask;
+
+				if (works[slot + 1] < works[slot])
+					slot++;
+			}
+
+			keys[slot] = key;
+			phis[slot] = phi;
+			deltas[slot] = delta;
+			works[slot] = (int) Math.min(Math.max(work, 1), Integer.MAX_VALUE);
+		}
+
+		/**
+		 * Removes every entry.
+		 */
+		public void clear() {
+			Arrays.fill(works, 0);
+		}
+	}
+
+
+	/**
+	 * Represents the results of a position for the player to move.
+	 */
+	static public enum Result {
+		WIN,
+		TIE,
+		LOSS,
+		UNKNOWN // The node limit was reached before the result was found
+	}
+}
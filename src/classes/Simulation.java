@@ -1,5 +1,13 @@
 package src.classes;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import src.classes.GameState.Player;
 import src.classes.heuristic.Heuristic;
 import src.classes.heuristic.Heuristic1;
@@ -8,28 +16,99 @@ import src.classes.heuristic.Heuristic2;
 
 public class Simulation {
 	private Game game;
-	private Minimax green_yoshi_minimax;
-	private Minimax red_yoshi_minimax;
+	private long seed;
+	private long time_budget = 0;
+	private long total_time = 0;
+	private long increment = 0;
 
 
 	public Simulation(Game game) {
 		this.game = game;
 
-		Heuristic heuristic = new Heuristic1(Player.GREEN, game);
-		green_yoshi_minimax = new Minimax(heuristic, game, Player.GREEN);
+		seed = new Random().nextLong();
+	}
+
 
-		heuristic = new Heuristic2(Player.RED, game);
-		red_yoshi_minimax = new Minimax(heuristic, game, Player.RED);
+	/**
+	 * Sets the seed from which the starting position of every game is drawn.
+	 * With the same seed and a fixed search depth, a simulation gives the
+	 * same results whatever the number of threads.
+	 *
+	 * @param seed the seed of the simulation.
+	 */
+	public void set_seed(long seed) {
+		this.seed = seed;
 	}
 
+	/**
+	 * Sets the time budget of every move of both Yoshis. See
+	 * {@link Minimax#set_time_budget(long)}.
+	 *
+	 * @param time_budget the time budget in milliseconds, or 0 to search to
+	 *                    the depth of the difficulty.
+	 */
+	public void set_time_budget(long time_budget) {
+		this.time_budget = time_budget;
+	}
+
+	/**
+	 * Plays every game on a game clock: each Yoshi gets the given time for the
+	 * whole game plus an increment per move, distributed by a
+	 * {@link TimeManager}.
+	 *
+	 * @param total_time The time of each Yoshi for a game, in milliseconds.
+	 * @param increment  The time added after every move, in milliseconds.
+	 */
+	public void set_game_clock(long total_time, long increment) {
+		this.total_time = total_time;
+		this.increment = increment;
+	}
+
+	/**
+	 * Returns the seed of the starting position of a game. It only depends on
+	 * the seed of the simulation and the number of the game, not on the
+	 * thread that plays it.
+	 *
+	 * @param game_number The number of the game.
+	 * @return the seed of the game.
+	 */
+	private long get_game_seed(int game_number) {
+		return seed ^ (game_number * 0x9E3779B97F4A7C15L);
+	}
+
+	/**
+	 * Creates the engine of a Yoshi: Heuristic1 for the green Yoshi and
+	 * Heuristic2 for the red one, with the time settings of the simulation.
+	 *
+	 * @param player The player of the Yoshi.
+	 * @return the engine of the Yoshi.
+	 */
+	private Minimax build_minimax(Player player) {
+		Heuristic heuristic = player == Player.GREEN ? new Heuristic1(player, game) : new Heuristic2(player, game);
+		Minimax minimax = new Minimax(heuristic, game, player);
+
+		minimax.set_time_budget(time_budget);
+
+		if (total_time > 0)
+			minimax.set_time_manager(new TimeManager(total_time, increment));
+
+		return minimax;
+	}
 
 	/**
 	 * Runs a single game simulation.
 	 *
+	 * Every game gets new engines, so that its result does not depend on the
+	 * games played before it on the same thread (the engines keep their
+	 * move ordering statistics from one move to the next).
+	 *
+	 * @param seed The seed of the starting position.
 	 * @return The winner of the game.
 	 */
-	private Player run_game() {
-		GameState game_state_copy = game.build_initial_game_state();
+	private Player run_game(long seed) {
+		GameState game_state_copy = game.build_initial_game_state(seed);
+		Minimax green_yoshi_minimax = build_minimax(Player.GREEN);
+		Minimax red_yoshi_minimax = build_minimax(Player.RED);
 		Coordinate tile;
 
 		while (!game.is_game_finished(game_state_copy)) {
@@ -47,30 +126,79 @@ public class Simulation {
 		return game.get_winner(game_state_copy);
 	}
 
+	/**
+	 * Runs every step-th game, starting from the given one, and counts the
+	 * results.
+	 *
+	 * @param first      The number of the first game to run.
+	 * @param iterations The number of games of the simulation.
+	 * @param step       The distance between two games run.
+	 * @return the wins of the red Yoshi, the wins of the green Yoshi and the
+	 *         ties.
+	 */
+	private int[] run_games(int first, int iterations, int step) {
+		int[] results = new int[3];
+
+		for (int i = first; i < iterations; i += step) {
+			Player winner = run_game(get_game_seed(i));
+
+			if (winner == null)
+				results[2]++;
+			else
+				results[winner.ordinal()]++;
+		}
+
+		return results;
+	}
+
 	/**
 	 * Runs the simulation for a specified number of games.
 	 *
 	 * @param iterations The number of iterations to run.
 	 */
 	public void run(int iterations) {
-		int green_yoshi_wins = 0;
-		int red_yoshi_wins = 0;
-		int ties = 0;
+		run(iterations, 1);
+	}
+
+	/**
+	 * Runs the simulation for a specified number of games, spread over a pool
+	 * of threads. Every thread plays its own share of the games with its own
+	 * engines and counts its own results, which are only added up once all
+	 * the games are over.
+	 *
+	 * @param iterations The number of iterations to run.
+	 * @param threads    The number of threads (at least 1).
+	 */
+	public void run(int iterations, int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Error: the number of threads must be at least 1");
 
-		for (int i = 0; i < iterations; i++) {
-			Player winner = run_game();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List <Future <int[]>> tallies = new ArrayList <>(threads);
+		int[] results = new int[3];
 
-			if (winner == Player.GREEN)
-				green_yoshi_wins++;
-			else if (winner == Player.RED)
-				red_yoshi_wins++;
-			else
-				ties++;
+		for (int i = 0; i < threads; i++) {
+			int first = i;
+
+			tallies.add(executor.submit(() -> run_games(first, iterations, threads)));
+		}
+
+		try {
+			for (Future <int[]> tally : tallies) {
+				int[] thread_results = tally.get();
+
+				for (int i = 0; i < results.length; i++)
+					results[i] += thread_results[i];
+			}
+		} catch (InterruptedException | ExecutionException exception) {
+			throw new IllegalStateException("Error: the simulation did not complete", exception);
+		} finally {
+			executor.shutdownNow();
 		}
 
 		System.out.println("Simulation results");
-		System.out.println("Green Yoshi wins: " + green_yoshi_wins);
-		System.out.println("Red Yoshi wins: " + red_yoshi_wins);
-		System.out.println("Ties: " + ties);
+		System.out.println("Green Yoshi wins: " + results[Player.GREEN.ordinal()]);
+		System.out.println("Red Yoshi wins: " + results[Player.RED.ordinal()]);
+		System.out.println("Ties: " + results[2]);
 	}
 }
@@ -0,0 +1,399 @@
+package src.classes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import src.classes.Game.Difficulty;
+import src.classes.GameState.Player;
+
+
+public class Tablebase {
+	public static final int UNKNOWN = Integer.MIN_VALUE; // Returned for a position the table does not have
+	public static final int MAX_SIZE = 26; // Most tiles of a board whose positions fit in a key
+
+	private static final int MAGIC = 0x59_54_42_31; // "YTB1"
+	private static final int HEADER_BYTES = 4 * Integer.BYTES + Long.BYTES;
+
+	private Board board;
+	private ByteBuffer buffer;
+	private long count;
+	private int square_bits;
+
+
+	private Tablebase(Board board, ByteBuffer buffer, long count) {
+		this.board = board;
+		this.buffer = buffer;
+		this.count = count;
+
+		square_bits = get_square_bits(board);
+	}
+
+
+	/**
+	 * Returns the number of bits of the key that hold the tile of a Yoshi.
+	 *
+	 * @param board A board.
+	 * @return the number of bits of a tile index.
+	 */
+	private static int get_square_bits(Board board) {
+		return Integer.SIZE - Integer.numberOfLeadingZeros(board.get_size() - 1);
+	}
+
+	/**
+	 * Packs a position into a key shared by every position that a symmetry
+	 * of the board, or swapping the colours, maps it to, and by no other.
+	 *
+	 * @param board       The board.
+	 * @param game_state  A game state.
+	 * @param player      The player to move.
+	 * @param square_bits The number of bits of a tile index.
+	 * @return the key of the position.
+	 */
+	private static long get_key(Board board, GameState game_state, Player player, int square_bits) {
+		Player opponent = player == Player.GREEN ? Player.RED : Player.GREEN;
+		int size = board.get_size();
+		long key = Long.MAX_VALUE;
+
+		for (int symmetry = 0; symmetry < board.get_symmetry_count(); symmetry++) // At most 62 bits, so never negative
+			key = Math.min(key, board.get_symmetric_mask(symmetry, game_state.get_mask(player)) |
+					board.get_symmetric_mask(symmetry, game_state.get_mask(opponent)) << size |
+					(long) board.get_symmetric_index(symmetry, game_state.get_square(player)) << 2 * size |
+					(long) board.get_symmetric_index(symmetry, game_state.get_square(opponent)) << (2 * size +
+							square_bits));
+
+		return key;
+	}
+
+	/**
+	 * Solves every position of the given game that can be reached from a
+	 * starting position, and writes the result of each to a file: the final
+	 * margin of the player to move under perfect play.
+	 *
+	 * @param game The game to solve.
+	 * @param file The file to write.
+	 * @return the number of positions written.
+	 */
+	public static long generate(Game game, Path file) {
+		Board board = game.get_board();
+		int size = board.get_size();
+
+		if (size > MAX_SIZE)
+			throw new IllegalArgumentException("Error: a tablebase can only be built for boards of up to " + MAX_SIZE +
+					" tiles");
+
+		Solver solver = new Solver(game);
+
+		for (int green = 0; green < size; green++)
+			for (int red = 0; red < size; red++)
+				if (green != red) // Every starting position with the red Yoshi to move swaps the colours of one of these
+					solver.solve(new GameState(board, green, red, 1L << green, 1L << red), Player.GREEN);
+
+		long[] keys = solver.positions.get_keys();
+
+		Arrays.sort(keys);
+
+		// The header, then the sorted keys as longs and the results as bytes, all little-endian
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+		header.putInt(MAGIC).putInt(board.get_rows()).putInt(board.get_columns()).putInt(0).putLong(keys.length);
+		header.flip();
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer block = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+			channel.write(header);
+
+			for (long key : keys) {
+				if (block.remaining() < Long.BYTES)
+					write(channel, block);
+
+				block.putLong(key);
+			}
+
+			for (long key : keys) {
+				if (!block.hasRemaining())
+					write(channel, block);
+
+				block.put((byte) solver.positions.get(key));
+			}
+
+			write(channel, block);
+		} catch (IOException exception) {
+			throw new UncheckedIOException("Error: the tablebase could not be written", exception);
+		}
+
+		return keys.length;
+	}
+
+	/**
+	 * Builds the tablebase of a board from the command line.
+	 *
+	 * @param args The number of rows, the number of columns and the file to
+	 *             write.
+	 */
+	public static void main(String[] args) {
+		if (args.length != 3)
+			throw new IllegalArgumentException("Error: the arguments are the rows, the columns and the file");
+
+		Game game = new Game(Difficulty.HARD, Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+		long start = System.nanoTime();
+		long count = generate(game, Path.of(args[2]));
+
+		System.out.printf("%d positions solved in %.1f s%n", count, (System.nanoTime() - start) / 1e9);
+	}
+
+	/**
+	 * Writes the contents of a buffer to a channel and clears it.
+	 *
+	 * @param channel A channel.
+	 * @param block   A buffer in write mode.
+	 * @throws IOException if the channel can not be written.
+	 */
+	private static void write(FileChannel channel, ByteBuffer block) throws IOException {
+		block.flip();
+
+		while (block.hasRemaining())
+			channel.write(block);
+
+		block.clear();
+	}
+
+	/**
+	 * Maps a tablebase file into memory. Nothing is read until the table is
+	 * probed, and then only the pages the probes touch, so loading takes no
+	 * time whatever the size of the file; the operating system keeps the
+	 * pages in its cache, shared by every process that maps the file.
+	 *
+	 * @param board The board of the positions.
+	 * @param file  A file written by {@link #generate(Game, Path)}.
+	 * @return the tablebase.
+	 */
+	public static Tablebase load(Board board, Path file) {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+					.order(ByteOrder.LITTLE_ENDIAN);
+
+			if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC)
+				throw new IllegalArgumentException("Error: the file is not a tablebase");
+			else if (buffer.getInt(4) != board.get_rows() || buffer.getInt(8) != board.get_columns())
+				throw new IllegalArgumentException("Error: the tablebase was built for another board");
+
+			long count = buffer.getLong(16);
+
+			if (buffer.capacity() != HEADER_BYTES + count * (Long.BYTES + 1))
+				throw new IllegalArgumentException("Error: the tablebase file is truncated");
+
+			return new Tablebase(board, buffer, count);
+		} catch (IOException exception) {
+			throw new UncheckedIOException("Error: the tablebase could not be read", exception);
+		}
+	}
+
+	/**
+	 * Returns the number of positions of the table.
+	 *
+	 * @return the number of positions.
+	 */
+	public long get_count() {
+		return count;
+	}
+
+	/**
+	 * Looks up the result of a position by a binary search over the sorted
+	 * keys.
+	 *
+	 * @param game_state A game state.
+	 * @param player     The player to move.
+	 * @return the final number of tiles of the player to move minus those of
+	 *         the opponent with perfect play, or UNKNOWN if the table does not
+	 *         have the position.
+	 */
+	public int probe(GameState game_state, Player player) {
+		if (game_state.get_square(Player.GREEN) < 0 || game_state.get_square(Player.RED) < 0)
+			return UNKNOWN;
+
+		long key = get_key(board, game_state, player, square_bits);
+		long low = 0;
+		long high = count - 1;
+
+		while (low <= high) {
+			long middle = (low + high) >>> 1;
+			long middle_key = buffer.getLong((int) (HEADER_BYTES + middle * Long.BYTES));
+
+			if (middle_key < key)
+				low = middle + 1;
+			else if (middle_key > key)
+				high = middle - 1;
+			else
+				return buffer.get((int) (HEADER_BYTES + count * Long.BYTES + middle));
+		}
+
+		return UNKNOWN;
+	}
+
+
+	/**
+	 * Solves positions by a memoized depth-first search.
+	 */
+	private static class Solver {
+		private Game game;
+		private Board board;
+		private int square_bits;
+		private PositionTable positions = new PositionTable();
+
+
+		public Solver(Game game) {
+			this.game = game;
+
+			board = game.get_board();
+			square_bits = get_square_bits(board);
+		}
+
+
+		/**
+		 * Returns the final number of tiles of the player to move minus those
+		 * of the opponent with perfect play, solving the position and every
+		 * position below it that is not solved yet. A Yoshi with no free tile
+		 * to jump to passes.
+		 *
+		 * @param game_state A game state, left unchanged when the method
+		 *                   returns.
+		 * @param player     The player to move.
+		 * @return the margin of the position.
+		 */
+		public int solve(GameState game_state, Player player) {
+			long key = get_key(board, game_state, player, square_bits);
+			int margin = positions.get(key);
+
+			if (margin != PositionTable.MISSING)
+				return margin;
+
+			Player opponent = player == Player.GREEN ? Player.RED : Player.GREEN;
+			int[] available_tiles = new int[8];
+			int count = game.get_available_tiles(game_state.get_square(player), game_state, available_tiles);
+
+			if (game.is_game_finished(game_state))
+				margin = game_state.get_tile_count(player) - game_state.get_tile_count(opponent);
+			else if (count == 0) // The opponent moves again
+				margin = -solve(game_state, opponent);
+			else {
+				margin = Integer.MIN_VALUE;
+
+				for (int i = 0; i < count; i++) {
+					game_state.make_move(player, available_tiles[i]);
+					margin = Math.max(margin, -solve(game_state, opponent));
+					game_state.unmake_move();
+				}
+			}
+
+			positions.put(key, (byte) margin);
+
+			return margin;
+		}
+	}
+
+
+	/**
+	 * Maps the keys of positions to their margins, with open addressing and
+	 * linear probing. The table doubles whenever it is half full.
+	 */
+	private static class PositionTable {
+		public static final int MISSING = Integer.MIN_VALUE;
+
+		private long[] keys = new long[1 << 16];
+		private byte[] margins = new byte[1 << 16];
+		private int count = 0;
+
+
+		/**
+		 * Returns the slot of a key: the high bits of its product with an odd
+		 * constant, which spreads keys that only differ in a few bits.
+		 *
+		 * @param key      A key (never 0, since a Yoshi always paints its tile).
+		 * @param capacity The number of slots, a power of two.
+		 * @return the first slot to probe.
+		 */
+		private static int get_slot(long key, int capacity) {
+			return (int) ((key * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - Integer.numberOfTrailingZeros(capacity)));
+		}
+
+		/**
+		 * Returns the margin stored for a key.
+		 *
+		 * @param key A key.
+		 * @return the margin, or MISSING if the key is not in the table.
+		 */
+		public int get(long key) {
+			int mask = keys.length - 1;
+
+			for (int slot = get_slot(key, keys.length); keys[slot] != 0; slot = (slot + 1) & mask)
+				if (keys[slot] == key)
+					return margins[slot];
+
+			return MISSING;
+		}
+
+		/**
+		 * Stores the margin of a key that is not in the table yet.
+		 *
+		 * @param key    A key.
+		 * @param margin The margin.
+		 */
+		public void put(long key, byte margin) {
+			if (2 * (count + 1) > keys.length)
+				resize();
+
+			int mask = keys.length - 1;
+			int slot = get_slot(key, keys.length);
+
+			while (keys[slot] != 0)
+				slot = (slot + 1) & mask;
+
+			keys[slot] = key;
+			margins[slot] = margin;
+			count++;
+		}
+
+		/**
+		 * Doubles the number of slots and moves every entry to its new slot.
+		 */
+		private void resize() {
+			if (keys.length == 1 << 30)
+				throw new IllegalStateException("Error: too many positions to solve");
+
+			long[] old_keys = keys;
+			byte[] old_margins = margins;
+
+			keys = new long[2 * old_keys.length];
+			margins = new byte[2 * old_keys.length];
+			count = 0;
+
+			for (int i = 0; i < old_keys.length; i++)
+				if (old_keys[i] != 0)
+					put(old_keys[i], old_margins[i]);
+		}
+
+		/**
+		 * Returns the keys of the table, in no particular order.
+		 *
+		 * @return the keys.
+		 */
+		public long[] get_keys() {
+			long[] result = new long[count];
+			int n = 0;
+
+			for (long key : keys)
+				if (key != 0)
+					result[n++] = key;
+
+			return result;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package src.classes;
+
+
+public class TimeManager {
+	private static final long MOVE_OVERHEAD = 5; // Milliseconds kept per move for everything but the search
+
+	private long increment;
+	private long remaining_time;
+	private long total_time;
+
+
+	/**
+	 * Constructs a time manager for a game clock.
+	 *
+	 * @param total_time The time of the side for the whole game, in
+	 *                   milliseconds.
+	 * @param increment  The time added to the clock after every move, in
+	 *                   milliseconds.
+	 */
+	public TimeManager(long total_time, long increment) {
+		if (total_time <= 0 || increment < 0)
+			throw new IllegalArgumentException("Error: invalid game clock");
+
+		this.total_time = total_time;
+		this.increment = increment;
+
+		remaining_time = total_time;
+	}
+
+
+	/**
+	 * Returns the time left on the clock.
+	 *
+	 * @return the remaining time in milliseconds.
+	 */
+	public long get_remaining_time() {
+		return remaining_time;
+	}
+
+	/**
+	 * Sets the clock back to the time of a whole game.
+	 */
+	public void reset() {
+		remaining_time = total_time;
+	}
+
+	/**
+	 * Returns the time to spend searching the next move: an even share of the
+	 * clock over the moves left, up to twice as much early in the game, and
+	 * never more than half of the clock.
+	 *
+	 * @param game_state The game state of the next move.
+	 * @return the budget of the move in milliseconds (at least 1).
+	 */
+	public long allocate(GameState game_state) {
+		int free_tiles = game_state.get_tile_count(null);
+		int moves_left = Math.max(1, (free_tiles + 1) / 2); // Each side paints about half of the free tiles
+		long available_time = remaining_time - MOVE_OVERHEAD * moves_left;
+
+		if (available_time <= 1)
+			return 1;
+
+		double weight = 1 + (double) free_tiles / game_state.get_board().get_size(); // Early moves decide more
+
+		long budget = (long) (available_time / moves_left * weight) + increment;
+
+		return Math.max(1, Math.min(budget, available_time / 2));
+	}
+
+	/**
+	 * Charges the time a move took to the clock and adds the increment.
+	 *
+	 * @param elapsed_time The time the move took, in milliseconds.
+	 */
+	public void consume(long elapsed_time) {
+		remaining_time += increment - elapsed_time;
+	}
+
+	/**
+	 * Checks if the clock has run out.
+	 *
+	 * @return true if there is no time left, false otherwise.
+	 */
+	public boolean is_flagged() {
+		return remaining_time < 0;
+	}
+}
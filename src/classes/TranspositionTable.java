@@ -0,0 +1,261 @@
+package src.classes;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+
+public class TranspositionTable {
+	private static final int ENTRY_BYTES = 2 * Long.BYTES;
+	private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+			ByteOrder.nativeOrder());
+	private static final Bound[] BOUNDS = Bound.values();
+	private static final int SOLVED = 0x80; // Flag of the bound byte of an entry whose search was not depth-limited
+
+	private ByteBuffer entries;
+	private long mask;
+	private int generation = 0;
+	private LongAdder collisions = new LongAdder();
+	private LongAdder hits = new LongAdder();
+	private LongAdder probes = new LongAdder();
+	private LongAdder stores = new LongAdder();
+
+
+	/**
+	 * Constructs a transposition table that takes about the given amount of
+	 * memory outside the Java heap.
+	 *
+	 * @param megabytes The size of the table in megabytes (between 1 and 1024).
+	 */
+	public TranspositionTable(int megabytes) {
+		if (megabytes < 1 || megabytes > 1024)
+			throw new IllegalArgumentException("Error: the size of the table must be between 1 and 1024 MB");
+
+		// The number of entries is rounded down to a power of two so that the
+		// index of a key is just its low bits
+		long capacity = Long.highestOneBit(((long) megabytes << 20) / ENTRY_BYTES);
+
+		entries = ByteBuffer.allocateDirect((int) (capacity * ENTRY_BYTES)).order(ByteOrder.nativeOrder());
+		mask = capacity - 1;
+	}
+
+
+	/**
+	 * Packs the information of a search result into a single long. The entry
+	 * is never 0, which marks an empty slot.
+	 *
+	 * @param depth  The remaining depth of the search (between 0 and 255).
+	 * @param bound  The type of bound of the score.
+	 * @param score  The score of the position.
+	 * @param move   The index of the best move, or -1 if there is none.
+	 * @param solved Whether the search reached the end of the game on every
+	 *               branch.
+	 * @return the packed entry.
+	 */
+	private long pack(int depth, Bound bound, float score, int move, boolean solved) {
+		return ((long) (generation & 0xFF) << 56) |
+				((long) (bound.ordinal() + 1 | (solved ? SOLVED : 0)) << 48) |
+				((long) ((move + 1) & 0xFF) << 40) |
+				((long) (depth & 0xFF) << 32) |
+				(Float.floatToRawIntBits(score) & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Returns the entry stored for the given key. A slot torn by two threads
+	 * writing it at once does not decode back to the key, and is a miss.
+	 *
+	 * @param key The hash of the position.
+	 * @return the entry, or 0 if the table has no entry for the key.
+	 */
+	public long probe(long key) {
+		int offset = (int) ((key & mask) * ENTRY_BYTES);
+		long check = (long) LONGS.getOpaque(entries, offset);
+		long entry = (long) LONGS.getOpaque(entries, offset + Long.BYTES);
+
+		probes.increment();
+
+		if (entry == 0)
+			return 0;
+		else if ((check ^ entry) != key) { // The slot holds the key XORed with the entry
+			collisions.increment();
+			return 0;
+		}
+
+		hits.increment();
+
+		return entry;
+	}
+
+	/**
+	 * Stores a search result for the given key.
+	 *
+	 * The slot is overwritten unless it holds a deeper result for the same key
+	 * from the current search, so entries from previous searches are always
+	 * replaced.
+	 *
+	 * @param key    The hash of the position.
+	 * @param depth  The remaining depth of the search.
+	 * @param bound  The type of bound of the score.
+	 * @param score  The score of the position.
+	 * @param move   The index of the best move, or -1 if there is none.
+	 * @param solved Whether the search reached the end of the game on every
+	 *               branch, so that the score does not depend on the depth.
+	 */
+	public void store(long key, int depth, Bound bound, float score, int move, boolean solved) {
+		int offset = (int) ((key & mask) * ENTRY_BYTES);
+		long check = (long) LONGS.getOpaque(entries, offset);
+		long entry = (long) LONGS.getOpaque(entries, offset + Long.BYTES);
+
+		if (entry != 0 && (check ^ entry) == key && get_generation(entry) == (generation & 0xFF) &&
+				get_depth(entry) > depth)
+			return;
+
+		entry = pack(depth, bound, score, move, solved);
+
+		LONGS.setOpaque(entries, offset, key ^ entry);
+		LONGS.setOpaque(entries, offset + Long.BYTES, entry);
+
+		stores.increment();
+	}
+
+	/**
+	 * Starts a new search. The entries of previous searches stay readable,
+	 * but any new result may replace them.
+	 */
+	public void new_search() {
+		generation++;
+	}
+
+	/**
+	 * Removes every entry and resets the counters.
+	 */
+	public void clear() {
+		for (int offset = 0; offset < entries.capacity(); offset += Long.BYTES)
+			LONGS.setOpaque(entries, offset, 0L);
+
+		collisions.reset();
+		hits.reset();
+		probes.reset();
+		stores.reset();
+	}
+
+	/**
+	 * Returns the number of entries the table can hold.
+	 *
+	 * @return the capacity of the table.
+	 */
+	public long get_capacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * Returns the number of probes that found an entry for their key.
+	 *
+	 * @return the number of hits.
+	 */
+	public long get_hits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of probes that found the slot taken by another key.
+	 *
+	 * @return the number of collisions.
+	 */
+	public long get_collisions() {
+		return collisions.sum();
+	}
+
+	/**
+	 * Returns the number of probes.
+	 *
+	 * @return the number of probes.
+	 */
+	public long get_probes() {
+		return probes.sum();
+	}
+
+	/**
+	 * Returns the number of entries written.
+	 *
+	 * @return the number of stores.
+	 */
+	public long get_stores() {
+		return stores.sum();
+	}
+
+	/**
+	 * Returns the score of an entry.
+	 *
+	 * @param entry An entry returned by {@link #probe(long)}.
+	 * @return the score.
+	 */
+	public static float get_score(long entry) {
+		return Float.intBitsToFloat((int) entry);
+	}
+
+	/**
+	 * Returns the remaining depth of the search that produced an entry.
+	 *
+	 * @param entry An entry returned by {@link #probe(long)}.
+	 * @return the depth.
+	 */
+	public static int get_depth(long entry) {
+		return (int) (entry >>> 32) & 0xFF;
+	}
+
+	/**
+	 * Returns the index of the best move of an entry.
+	 *
+	 * @param entry An entry returned by {@link #probe(long)}.
+	 * @return the index of the best move, or -1 if there is none.
+	 */
+	public static int get_move(long entry) {
+		return ((int) (entry >>> 40) & 0xFF) - 1;
+	}
+
+	/**
+	 * Returns the type of bound of the score of an entry.
+	 *
+	 * @param entry An entry returned by {@link #probe(long)}.
+	 * @return the type of bound.
+	 */
+	public static Bound get_bound(long entry) {
+		return BOUNDS[((int) (entry >>> 48) & 0x7F) - 1];
+	}
+
+	/**
+	 * Checks if the search that produced an entry reached the end of the game
+	 * on every branch it searched, so that a deeper search would give the
+	 * same score.
+	 *
+	 * @param entry An entry returned by {@link #probe(long)}.
+	 * @return true if the entry is solved, false otherwise.
+	 */
+	public static boolean is_solved(long entry) {
+		return ((entry >>> 48) & SOLVED) != 0;
+	}
+
+	/**
+	 * Returns the generation of the search that wrote an entry.
+	 *
+	 * @param entry An entry returned by {@link #probe(long)}.
+	 * @return the generation, modulo 256.
+	 */
+	private static int get_generation(long entry) {
+		return (int) (entry >>> 56) & 0xFF;
+	}
+
+
+	/**
+	 * Represents how the score of an entry relates to the real value of the
+	 * position.
+	 */
+	static public enum Bound {
+		EXACT, // The score is the value of the position
+		LOWER, // The search failed high: the value is at least the score
+		UPPER // The search failed low: the value is at most the score
+	}
+}
@@ -0,0 +1,144 @@
+package src.classes.heuristic;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+
+import src.classes.CanonicalForm;
+import src.classes.GameState;
+
+
+public class CachedHeuristic extends Heuristic {
+	private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+	private Heuristic heuristic;
+	private long[] entries;
+	private int mask;
+	private boolean symmetric = false;
+	private LongAdder hits = new LongAdder();
+	private LongAdder probes = new LongAdder();
+
+
+	/**
+	 * Constructs a cache in front of the given heuristic, which must score a
+	 * game state from the position alone.
+	 *
+	 * @param heuristic The heuristic whose scores are cached.
+	 * @param megabytes The size of the cache in megabytes (between 1 and 1024).
+	 */
+	public CachedHeuristic(Heuristic heuristic, int megabytes) {
+		super(heuristic.game, heuristic.maximized_player);
+
+		if (megabytes < 1 || megabytes > 1024)
+			throw new IllegalArgumentException("Error: the size of the cache must be between 1 and 1024 MB");
+
+		this.heuristic = heuristic;
+
+		// Every slot takes two longs, and the number of slots is a power of two
+		// so that the slot of a key is just its low bits
+		int capacity = Integer.highestOneBit((int) (((long) megabytes << 20) / (2 * Long.BYTES)));
+
+		entries = new long[2 * capacity];
+		mask = capacity - 1;
+	}
+
+
+	/**
+	 * Returns the heuristic whose scores are cached.
+	 *
+	 * @return the cached heuristic.
+	 */
+	public Heuristic get_heuristic() {
+		return heuristic;
+	}
+
+	/**
+	 * Checks if the cache shares its entries between symmetric game states.
+	 *
+	 * @return true if symmetric game states share entries, false otherwise.
+	 */
+	public boolean is_symmetric() {
+		return symmetric;
+	}
+
+	/**
+	 * Sets whether symmetric game states share their entries, which requires
+	 * the heuristic to give them the same score.
+	 *
+	 * @param symmetric true to share the entries of symmetric game states.
+	 */
+	public void set_symmetric(boolean symmetric) {
+		this.symmetric = symmetric;
+	}
+
+	/**
+	 * Returns the score of the cached heuristic for the given game state,
+	 * computing it only if the cache does not have it.
+	 *
+	 * @param game_state A game state.
+	 * @return the score of the game state.
+	 */
+	public float get_score(GameState game_state) {
+		long key = symmetric ? CanonicalForm.get_hash(game_state) : game_state.get_hash();
+		int index = 2 * ((int) key & mask);
+		long check = (long) LONGS.getOpaque(entries, index);
+		long entry = (long) LONGS.getOpaque(entries, index + 1);
+
+		probes.increment();
+
+		if (entry != 0 && (check ^ entry) == key) { // A slot torn by two threads does not decode back to the key
+			hits.increment();
+			return Float.intBitsToFloat((int) entry);
+		}
+
+		float score = heuristic.get_score(game_state);
+
+		entry = (1L << 32) | (Float.floatToRawIntBits(score) & 0xFFFFFFFFL); // The high bit tells a used slot
+
+		LONGS.setOpaque(entries, index, key ^ entry);
+		LONGS.setOpaque(entries, index + 1, entry);
+
+		return score;
+	}
+
+	/**
+	 * Removes every entry and resets the counters.
+	 */
+	public void clear() {
+		for (int i = 0; i < entries.length; i++)
+			LONGS.setOpaque(entries, i, 0L);
+
+		hits.reset();
+		probes.reset();
+	}
+
+	/**
+	 * Returns the number of scores read from the cache.
+	 *
+	 * @return the number of hits.
+	 */
+	public long get_hits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of scores asked for.
+	 *
+	 * @return the number of probes.
+	 */
+	public long get_probes() {
+		return probes.sum();
+	}
+
+	/**
+	 * Returns the share of the scores asked for that were read from the
+	 * cache.
+	 *
+	 * @return the hit rate, between 0 and 1 (0 if nothing was asked for).
+	 */
+	public double get_hit_rate() {
+		long probes = get_probes();
+
+		return probes == 0 ? 0 : (double) get_hits() / probes;
+	}
+}
@@ -0,0 +1,108 @@
+package src.classes.heuristic;
+
+import src.classes.Board;
+import src.classes.GameState;
+import src.classes.GameState.Player;
+
+
+public class Frontier {
+	private Board board;
+	private int count = 0;
+	private int[] green_squares;
+	private int[] red_squares;
+	private long[] green_tiles;
+	private long[] red_tiles;
+	private long[] free_tiles;
+
+
+	/**
+	 * Constructs an empty frontier.
+	 *
+	 * @param board    The board of the game states.
+	 * @param capacity The most game states the frontier can hold.
+	 */
+	public Frontier(Board board, int capacity) {
+		this.board = board;
+
+		green_squares = new int[capacity];
+		red_squares = new int[capacity];
+		green_tiles = new long[capacity];
+		red_tiles = new long[capacity];
+		free_tiles = new long[capacity];
+	}
+
+
+	/**
+	 * Removes every game state.
+	 */
+	public void clear() {
+		count = 0;
+	}
+
+	/**
+	 * Adds a copy of the position of a game state, without allocating.
+	 *
+	 * @param game_state A game state.
+	 * @return the index of the game state in the frontier.
+	 */
+	public int add(GameState game_state) {
+		if (count == free_tiles.length)
+			throw new IllegalStateException("Error: the frontier is full");
+
+		green_squares[count] = game_state.get_square(Player.GREEN);
+		red_squares[count] = game_state.get_square(Player.RED);
+		green_tiles[count] = game_state.get_mask(Player.GREEN);
+		red_tiles[count] = game_state.get_mask(Player.RED);
+		free_tiles[count] = game_state.get_mask(null);
+
+		return count++;
+	}
+
+	/**
+	 * Returns the number of game states of the frontier.
+	 *
+	 * @return the number of game states.
+	 */
+	public int get_count() {
+		return count;
+	}
+
+	/**
+	 * Returns the tiles of a Yoshi in every game state of the frontier. Only
+	 * the first {@link #get_count()} entries are meaningful.
+	 *
+	 * @param player The player of the Yoshi.
+	 * @return the tile indices, by game state.
+	 */
+	public int[] get_squares(Player player) {
+		return player == Player.GREEN ? green_squares : red_squares;
+	}
+
+	/**
+	 * Returns the tiles painted by a Yoshi, or the free tiles, in every game
+	 * state of the frontier. Only the first {@link #get_count()} entries are
+	 * meaningful.
+	 *
+	 * @param player The player of the Yoshi, or null for the free tiles.
+	 * @return the bitboards of the tiles, by game state.
+	 */
+	public long[] get_masks(Player player) {
+		if (player == Player.GREEN)
+			return green_tiles;
+		else if (player == Player.RED)
+			return red_tiles;
+		else
+			return free_tiles;
+	}
+
+	/**
+	 * Builds a game state of the frontier, for heuristics that can only score
+	 * one game state at a time.
+	 *
+	 * @param index The index of the game state.
+	 * @return the game state.
+	 */
+	public GameState get_game_state(int index) {
+		return new GameState(board, green_squares[index], red_squares[index], green_tiles[index], red_tiles[index]);
+	}
+}
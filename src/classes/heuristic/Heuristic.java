@@ -20,4 +20,17 @@ abstract public class Heuristic {
 
 
 	abstract public float get_score(GameState game_state);
+
+	/**
+	 * Scores every game state of a frontier at once. This one builds and
+	 * scores them one at a time; heuristics whose terms are a few population
+	 * counts override it to compute each term over the whole frontier.
+	 *
+	 * @param frontier The game states to score.
+	 * @param scores   The scores, by index in the frontier.
+	 */
+	public void get_scores(Frontier frontier, float[] scores) {
+		for (int i = 0; i < frontier.get_count(); i++)
+			scores[i] = get_score(frontier.get_game_state(i));
+	}
 }
@@ -1,12 +1,10 @@
 package src.classes.heuristic;
 
-import src.classes.Coordinate;
+import src.classes.Board;
 import src.classes.Game;
 import src.classes.GameState;
 import src.classes.GameState.Player;
 
-import java.util.List;
-
 
 public class Heuristic1 extends Heuristic {
 	public Heuristic1(Player maximized_player, Game game) {
@@ -28,8 +26,8 @@ public class Heuristic1 extends Heuristic {
 	private int available_moves_score(GameState game_state) {
 		Player opponent = maximized_player == Player.GREEN ? Player.RED : Player.GREEN;
 
-		return game.get_available_tiles(game_state.get_player(maximized_player), game_state).size() -
-					game.get_available_tiles(game_state.get_player(opponent), game_state).size();
+		return game.get_available_count(game_state.get_square(maximized_player), game_state) -
+					game.get_available_count(game_state.get_square(opponent), game_state);
 	}
 
 	/**
@@ -41,12 +39,12 @@ public class Heuristic1 extends Heuristic {
 	 *         available tile
 	 */
 	private int calculate_future_moves_score_from_each_available_tile(GameState game_state) {
-		List <Coordinate> available_tiles = game.get_available_tiles(game_state.get_player(maximized_player), game_state);
+		long available_tiles = game.get_available_mask(game_state.get_square(maximized_player), game_state);
 		int score = 0;
 
-		for (Coordinate move : available_tiles) {
-			List <Coordinate> future_available_tiles = game.get_available_tiles(move, game_state);
-			score += future_available_tiles.size();
+		for (; available_tiles != 0; available_tiles &= available_tiles - 1) {
+			int move = Long.numberOfTrailingZeros(available_tiles);
+			score += game.get_available_count(move, game_state);
 		}
 
 		return score;
@@ -62,4 +60,34 @@ public class Heuristic1 extends Heuristic {
 		return available_moves_score(game_state) +
 				calculate_future_moves_score_from_each_available_tile(game_state);
 	}
+
+	/**
+	 * Scores every game state of a frontier at once, with the same result as
+	 * {@link #get_score(GameState)} for each. The frontier is stored as one
+	 * array per field, so each term is a loop of knight masks and population
+	 * counts over consecutive entries, without building any game state.
+	 *
+	 * @param frontier The game states to score.
+	 * @param scores   The scores, by index in the frontier.
+	 */
+	public void get_scores(Frontier frontier, float[] scores) {
+		Board board = game.get_board();
+		int count = frontier.get_count();
+		int[] squares = frontier.get_squares(maximized_player);
+		int[] opponent_squares = frontier.get_squares(minimized_player);
+		long[] free_tiles = frontier.get_masks(null);
+
+		for (int i = 0; i < count; i++)
+			scores[i] = Long.bitCount(board.get_knight_mask(squares[i]) & free_tiles[i]) -
+					Long.bitCount(board.get_knight_mask(opponent_squares[i]) & free_tiles[i]);
+
+		for (int i = 0; i < count; i++) {
+			int score = 0;
+
+			for (long tiles = board.get_knight_mask(squares[i]) & free_tiles[i]; tiles != 0; tiles &= tiles - 1)
+				score += Long.bitCount(board.get_knight_mask(Long.numberOfTrailingZeros(tiles)) & free_tiles[i]);
+
+			scores[i] += score;
+		}
+	}
 }
@@ -1,5 +1,6 @@
 package src.classes.heuristic;
 
+import src.classes.Board;
 import src.classes.Game;
 import src.classes.GameState;
 import src.classes.GameState.Player;
@@ -25,8 +26,8 @@ public class Heuristic2 extends Heuristic {
 	private int available_moves_score(GameState game_state) {
 		Player opponent = maximized_player == Player.GREEN ? Player.RED : Player.GREEN;
 
-		return game.get_available_tiles(game_state.get_player(maximized_player), game_state).size() -
-				game.get_available_tiles(game_state.get_player(opponent), game_state).size();
+		return game.get_available_count(game_state.get_square(maximized_player), game_state) -
+				game.get_available_count(game_state.get_square(opponent), game_state);
 	}
 
 	/**
@@ -38,8 +39,8 @@ public class Heuristic2 extends Heuristic {
 	 *         and the number of tiles owned by the maximized player.
 	 */
 	private float painted_tiles_score(GameState game_state) {
-		return game_state.get_tiles(maximized_player).size() -
-				game_state.get_tiles(minimized_player).size();
+		return game_state.get_tile_count(maximized_player) -
+				game_state.get_tile_count(minimized_player);
 	}
 
 	/**
@@ -52,4 +53,27 @@ public class Heuristic2 extends Heuristic {
 	public float get_score(GameState game_state) {
 		return available_moves_score(game_state) + painted_tiles_score(game_state);
 	}
+
+	/**
+	 * Scores every game state of a frontier at once, with the same result as
+	 * {@link #get_score(GameState)} for each, as a single loop of population
+	 * counts over the arrays of the frontier.
+	 *
+	 * @param frontier The game states to score.
+	 * @param scores   The scores, by index in the frontier.
+	 */
+	public void get_scores(Frontier frontier, float[] scores) {
+		Board board = game.get_board();
+		int count = frontier.get_count();
+		int[] squares = frontier.get_squares(maximized_player);
+		int[] opponent_squares = frontier.get_squares(minimized_player);
+		long[] tiles = frontier.get_masks(maximized_player);
+		long[] opponent_tiles = frontier.get_masks(minimized_player);
+		long[] free_tiles = frontier.get_masks(null);
+
+		for (int i = 0; i < count; i++)
+			scores[i] = Long.bitCount(board.get_knight_mask(squares[i]) & free_tiles[i]) -
+					Long.bitCount(board.get_knight_mask(opponent_squares[i]) & free_tiles[i]) +
+					Long.bitCount(tiles[i]) - Long.bitCount(opponent_tiles[i]);
+	}
 }
@@ -0,0 +1,84 @@
+package src.classes.heuristic;
+
+import src.classes.Board;
+import src.classes.Game;
+import src.classes.GameState;
+import src.classes.GameState.Player;
+
+
+public class Heuristic3 extends Heuristic {
+	private Board board;
+
+
+	public Heuristic3(Player maximized_player, Game game) {
+		super(game, maximized_player);
+
+		board = game.get_board();
+	}
+
+
+	/**
+	 * Calculates the score based on the territory of each Yoshi: the free
+	 * tiles it can reach in fewer jumps than the opponent.
+	 *
+	 * @param game_state A game state.
+	 * @return the difference between the territory of the maximized player
+	 *         and that of the opponent.
+	 */
+	private int territory_score(GameState game_state) {
+		long free_tiles = game_state.get_mask(null);
+		long frontier = get_first_jumps(game_state.get_square(maximized_player), free_tiles);
+		long opponent_frontier = get_first_jumps(game_state.get_square(minimized_player), free_tiles);
+		long reached = 0;
+		long opponent_reached = 0;
+		int score = 0;
+
+		while ((frontier | opponent_frontier) != 0) { // Both flood the free tiles at once, ties belong to neither
+			reached |= frontier;
+			opponent_reached |= opponent_frontier;
+
+			score += Long.bitCount(frontier & ~opponent_reached) - Long.bitCount(opponent_frontier & ~reached);
+
+			frontier = board.get_knight_attacks(frontier) & free_tiles & ~reached;
+			opponent_frontier = board.get_knight_attacks(opponent_frontier) & free_tiles & ~opponent_reached;
+		}
+
+		return score;
+	}
+
+	/**
+	 * Returns the free tiles a Yoshi can jump to from its tile.
+	 *
+	 * @param square     The tile of the Yoshi, or -1 if it is not on the
+	 *                   board.
+	 * @param free_tiles The free tiles.
+	 * @return the bitboard of the tiles.
+	 */
+	private long get_first_jumps(int square, long free_tiles) {
+		return square < 0 ? 0 : board.get_knight_mask(square) & free_tiles;
+	}
+
+	/**
+	 * Calculates the score based on the number of painted tiles for the current
+	 * game state.
+	 *
+	 * @param game_state The current game state.
+	 * @return the difference of the number of tiles owned by the maximized
+	 *         player and the number of tiles owned by the minimized player.
+	 */
+	private int painted_tiles_score(GameState game_state) {
+		return game_state.get_tile_count(maximized_player) - game_state.get_tile_count(minimized_player);
+	}
+
+	/**
+	 * Calculates the score for the given game state based on painted tiles and
+	 * territory: an estimate of the final margin, where each Yoshi paints the
+	 * tiles it already has and those it reaches first.
+	 *
+	 * @param game_state a game state.
+	 * @return the score for the game state.
+	 */
+	public float get_score(GameState game_state) {
+		return painted_tiles_score(game_state) + territory_score(game_state);
+	}
+}
@@ -0,0 +1,301 @@
+package src.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import src.classes.Board;
+import src.classes.CanonicalForm;
+import src.classes.Coordinate;
+import src.classes.Game;
+import src.classes.GameState;
+import src.classes.Perft;
+import src.classes.Game.Difficulty;
+import src.classes.GameState.Player;
+
+
+public class GameTest {
+	private static final int GAMES = 20; // Random games played on every board
+	private static final int PERFT_DEPTH = 6;
+
+	private int checks = 0;
+	private int failures = 0;
+
+
+	/**
+	 * Records the result of a check, printing it if it failed.
+	 *
+	 * @param condition Whether the check passed.
+	 * @param message   What was checked.
+	 */
+	private void check(boolean condition, String message) {
+		checks++;
+
+		if (!condition) {
+			failures++;
+			System.out.println("FAILED: " + message);
+		}
+	}
+
+	/**
+	 * Checks if two game states have the same position: the same painted
+	 * tiles and the same squares of both Yoshis.
+	 *
+	 * @param game_state       A game state.
+	 * @param other_game_state Another game state.
+	 * @return true if the positions are the same, false otherwise.
+	 */
+	private static boolean is_same_position(GameState game_state, GameState other_game_state) {
+		for (Player player : Player.values())
+			if (game_state.get_mask(player) != other_game_state.get_mask(player) ||
+					game_state.get_square(player) != other_game_state.get_square(player))
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Checks that making moves in place reaches the same positions as playing
+	 * them on copies, and that unmaking them goes back through every position
+	 * in reverse order, on random games.
+	 */
+	private void test_make_unmake_move() {
+		for (int[] size : new int[][] { { 8, 8 }, { 5, 6 } }) {
+			Game game = new Game(Difficulty.HARD, size[0], size[1]);
+			int[] tiles = new int[8];
+
+			for (long seed = 0; seed < GAMES; seed++) {
+				Random random = new Random(seed);
+				GameState game_state = game.build_initial_game_state(seed);
+				GameState played_state = game_state.copy();
+				List <GameState> history = new ArrayList <>();
+				Player player = Player.RED;
+
+				while (!game.is_game_finished(game_state)) {
+					int count = game.get_available_tiles(game_state.get_square(player), game_state, tiles);
+
+					if (count > 0) {
+						int tile = tiles[random.nextInt(count)];
+
+						history.add(game_state.copy());
+						game_state.make_move(player, tile);
+						played_state = game.play(player, game.get_board().get_coordinate(tile), played_state);
+
+						check(is_same_position(game_state, played_state), "seed " + seed + ": the move " + tile +
+								" of the " + player + " Yoshi made in place differs from the move played");
+					}
+
+					player = player == Player.GREEN ? Player.RED : Player.GREEN;
+				}
+
+				for (int ply = history.size() - 1; ply >= 0; ply--) {
+					game_state.unmake_move();
+
+					check(is_same_position(game_state, history.get(ply)), "seed " + seed + ": unmaking the move of " +
+							"ply " + ply + " does not restore the position");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the hash of a game state computed from scratch, by building a
+	 * new game state with the same position.
+	 *
+	 * @param game_state A game state.
+	 * @return the hash of the position.
+	 */
+	private static long get_full_hash(GameState game_state) {
+		return new GameState(game_state.get_board(), game_state.get_square(Player.GREEN),
+				game_state.get_square(Player.RED), game_state.get_mask(Player.GREEN),
+				game_state.get_mask(Player.RED)).get_hash();
+	}
+
+	/**
+	 * Checks that the hash updated on every move and unmove, and by
+	 * {@link Game#play}, matches the hash computed from scratch, on random
+	 * games.
+	 */
+	private void test_incremental_hash() {
+		Game game = new Game(Difficulty.HARD, 8, 8);
+		int[] tiles = new int[8];
+
+		for (long seed = 0; seed < GAMES; seed++) {
+			Random random = new Random(seed);
+			GameState game_state = game.build_initial_game_state(seed);
+			GameState played_state = game_state.copy();
+			Player player = Player.RED;
+			int moves = 0;
+
+			while (!game.is_game_finished(game_state)) {
+				int count = game.get_available_tiles(game_state.get_square(player), game_state, tiles);
+
+				if (count > 0) {
+					int tile = tiles[random.nextInt(count)];
+
+					game_state.make_move(player, tile);
+					played_state = game.play(player, game.get_board().get_coordinate(tile), played_state);
+					moves++;
+
+					check(game_state.get_hash() == get_full_hash(game_state), "seed " + seed + ": the hash after " +
+							"the move " + tile + " differs from the hash computed from scratch");
+					check(played_state.get_hash() == get_full_hash(played_state), "seed " + seed + ": the hash " +
+							"after playing the move " + tile + " differs from the hash computed from scratch");
+				}
+
+				player = player == Player.GREEN ? Player.RED : Player.GREEN;
+			}
+
+			for (; moves > 0; moves--) {
+				game_state.unmake_move();
+
+				check(game_state.get_hash() == get_full_hash(game_state), "seed " + seed + ": the hash after " +
+						"unmaking a move differs from the hash computed from scratch");
+			}
+		}
+	}
+
+	/**
+	 * Counts the leaves of the game tree of the given depth the slow way, with
+	 * the list of moves and a copy of the game state per move.
+	 *
+	 * @param game       The game.
+	 * @param game_state A game state.
+	 * @param player     The player to move.
+	 * @param depth      The depth of the tree.
+	 * @return the number of leaves.
+	 */
+	private static long count_leaves(Game game, GameState game_state, Player player, int depth) {
+		if (depth == 0 || game.is_game_finished(game_state))
+			return 1;
+
+		Player opponent = player == Player.GREEN ? Player.RED : Player.GREEN;
+		List <Coordinate> available_tiles = game.get_available_tiles(game_state.get_player(player), game_state);
+
+		if (available_tiles.isEmpty()) // The opponent moves again
+			return count_leaves(game, game_state, opponent, depth - 1);
+
+		long leaves = 0;
+
+		for (Coordinate tile : available_tiles)
+			leaves += count_leaves(game, game.play(player, tile, game_state), opponent, depth - 1);
+
+		return leaves;
+	}
+
+	/**
+	 * Checks that every perft count, plain, parallel and hashed, matches the
+	 * slow count, from starting positions and from random middle games.
+	 */
+	private void test_perft() {
+		for (int[] size : new int[][] { { 8, 8 }, { 5, 6 } }) {
+			Game game = new Game(Difficulty.HARD, size[0], size[1]);
+			Perft perft = new Perft(game);
+			int[] tiles = new int[8];
+
+			for (long seed = 0; seed < GAMES; seed++) {
+				Random random = new Random(seed);
+				GameState game_state = game.build_initial_game_state(seed);
+				Player player = Player.RED;
+
+				for (int ply = 0; ply < seed % 2 * 12 && !game.is_game_finished(game_state); ply++) {
+					int count = game.get_available_tiles(game_state.get_square(player), game_state, tiles);
+
+					if (count > 0)
+						game_state.make_move(player, tiles[random.nextInt(count)]);
+
+					player = player == Player.GREEN ? Player.RED : Player.GREEN;
+				}
+
+				long leaves = count_leaves(game, game_state, player, PERFT_DEPTH);
+				String position = size[0] + "x" + size[1] + " seed " + seed;
+
+				check(perft.count(game_state, player, PERFT_DEPTH) == leaves, position + ": perft does not count " +
+						leaves + " leaves");
+				check(perft.count_parallel(game_state, player, PERFT_DEPTH, 3) == leaves, position + ": the " +
+						"parallel perft does not count " + leaves + " leaves");
+				check(perft.count_hashed(game_state, player, PERFT_DEPTH, 1) == leaves, position + ": the hashed " +
+						"perft does not count " + leaves + " leaves");
+			}
+		}
+	}
+
+	/**
+	 * Checks that every symmetric image of a position, with or without the
+	 * colours swapped, has the same canonical form and the same moves, that
+	 * the symmetric hash ignores the symmetries, and that the tiles and
+	 * players of the canonical form map back to the original ones, on random
+	 * positions of a square and of a rectangular board.
+	 */
+	private void test_canonical_form() {
+		for (int[] size : new int[][] { { 8, 8 }, { 5, 6 } }) {
+			Game game = new Game(Difficulty.HARD, size[0], size[1]);
+			Board board = game.get_board();
+			int[] tiles = new int[8];
+
+			for (long seed = 0; seed < GAMES; seed++) {
+				Random random = new Random(seed);
+				GameState game_state = game.build_initial_game_state(seed);
+				Player player = Player.RED;
+
+				for (int ply = 0; ply < seed && !game.is_game_finished(game_state); ply++) {
+					int count = game.get_available_tiles(game_state.get_square(player), game_state, tiles);
+
+					if (count > 0)
+						game_state.make_move(player, tiles[random.nextInt(count)]);
+
+					player = player == Player.GREEN ? Player.RED : Player.GREEN;
+				}
+
+				CanonicalForm canonical_form = CanonicalForm.of(game_state, true);
+				String position = size[0] + "x" + size[1] + " seed " + seed;
+
+				for (int symmetry = 0; symmetry < board.get_symmetry_count(); symmetry++)
+					for (boolean swap_colours : new boolean[] { false, true }) {
+						GameState symmetric_state = game_state.transform(symmetry, swap_colours);
+						Player symmetric_player = swap_colours ? (player == Player.GREEN ? Player.RED : Player.GREEN) :
+								player;
+
+						check(is_same_position(CanonicalForm.of(symmetric_state, true).get_game_state(),
+								canonical_form.get_game_state()), position + ": the symmetry " + symmetry +
+								(swap_colours ? " with the colours swapped" : "") + " changes the canonical form");
+						check(game.get_available_tiles(symmetric_state.get_square(symmetric_player), symmetric_state,
+								tiles) == game.get_available_tiles(game_state.get_square(player), game_state, tiles),
+								position + ": the symmetry " + symmetry + " changes the number of moves");
+
+						if (!swap_colours)
+							check(CanonicalForm.get_hash(symmetric_state) == CanonicalForm.get_hash(game_state),
+									position + ": the symmetry " + symmetry + " changes the symmetric hash");
+					}
+
+				GameState canonical_state = canonical_form.get_game_state();
+
+				for (Player side : Player.values())
+					check(canonical_state.get_square(canonical_form.to_canonical(side)) ==
+							canonical_form.to_canonical(game_state.get_square(side)), position + ": the " + side +
+							" Yoshi is not mapped to the canonical form");
+
+				for (int index = 0; index < board.get_size(); index++)
+					check(canonical_form.from_canonical(canonical_form.to_canonical(index)) == index, position +
+							": the tile " + index + " is not mapped back from the canonical form");
+			}
+		}
+	}
+
+	/**
+	 * Runs every test and exits with status 1 if any check failed.
+	 *
+	 * @param args Not used.
+	 */
+	public static void main(String[] args) {
+		GameTest test = new GameTest();
+
+		test.test_make_unmake_move();
+		test.test_incremental_hash();
+		test.test_perft();
+		test.test_canonical_form();
+
+		System.out.println(test.checks + " checks, " + test.failures + " failed");
+		System.exit(test.failures == 0 ? 0 : 1);
+	}
+}
@@ -0,0 +1,511 @@
+package src.tests;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import src.classes.Board;
+import src.classes.CanonicalForm;
+import src.classes.Coordinate;
+import src.classes.Game;
+import src.classes.GameState;
+import src.classes.Minimax;
+import src.classes.Minimax.Parallelism;
+import src.classes.ProofNumberSearch.Result;
+import src.classes.OpeningBook;
+import src.classes.ProofNumberSearch;
+import src.classes.Tablebase;
+import src.classes.TimeManager;
+import src.classes.TranspositionTable;
+import src.classes.Game.Difficulty;
+import src.classes.GameState.Player;
+import src.classes.heuristic.Frontier;
+import src.classes.heuristic.Heuristic;
+import src.classes.heuristic.Heuristic1;
+import src.classes.heuristic.Heuristic2;
+import src.classes.heuristic.Heuristic3;
+
+
+public class SearchTest {
+	private static final long SOLVE_BUDGET = 60_000; // Milliseconds, far more than solving a late position takes
+	private static final int SHALLOW_DEPTH = 3; // Depth of the search that fills the table before deepening
+	private static final int FIXED_DEPTH = 8; // Depth of the parallel searches, too shallow to solve a middle game
+	private static final long SHORT_CLOCK = 100; // Milliseconds for a whole game, a few per move
+	private static final Path OPENING_BOOK = Path.of("./src/assets/opening_book_8x8.bin");
+
+	private int checks = 0;
+	private int failures = 0;
+
+
+	/**
+	 * Records the result of a check, printing it if it failed.
+	 *
+	 * @param condition Whether the check passed.
+	 * @param message   What was checked.
+	 */
+	private void check(boolean condition, String message) {
+		checks++;
+
+		if (!condition) {
+			failures++;
+			System.out.println("FAILED: " + message);
+		}
+	}
+
+	/**
+	 * Plays random moves from the initial game state of a seed until no more
+	 * than the given number of tiles are free, or the game is finished.
+	 *
+	 * @param game       The game.
+	 * @param seed       The seed of the initial game state and of the moves.
+	 * @param free_tiles The most free tiles the position may have.
+	 * @return the position, with the green Yoshi to move.
+	 */
+	private static GameState build_late_position(Game game, long seed, int free_tiles) {
+		Random random = new Random(seed);
+		GameState game_state = game.build_initial_game_state(seed);
+		Player player = Player.GREEN;
+		int[] tiles = new int[8];
+
+		while (!game.is_game_finished(game_state) &&
+				(game_state.get_tile_count(null) > free_tiles || player != Player.GREEN)) {
+			int count = game.get_available_tiles(game_state.get_square(player), game_state, tiles);
+
+			if (count > 0)
+				game_state.make_move(player, tiles[random.nextInt(count)]);
+
+			player = player == Player.GREEN ? Player.RED : Player.GREEN;
+		}
+
+		return game_state;
+	}
+
+	/**
+	 * Finds the final margin of a position under perfect play by searching
+	 * the whole game tree, with no pruning.
+	 *
+	 * @param game       The game.
+	 * @param game_state A game state, left unchanged when the method returns.
+	 * @param player     The player to move.
+	 * @return the final number of tiles of the player to move minus those of
+	 *         the opponent.
+	 */
+	private static int get_exact_margin(Game game, GameState game_state, Player player) {
+		Player opponent = player == Player.GREEN ? Player.RED : Player.GREEN;
+
+		if (game.is_game_finished(game_state))
+			return game_state.get_tile_count(player) - game_state.get_tile_count(opponent);
+
+		int[] tiles = new int[8];
+		int count = game.get_available_tiles(game_state.get_square(player), game_state, tiles);
+
+		if (count == 0) // The opponent moves again
+			return -get_exact_margin(game, game_state, opponent);
+
+		int margin = Integer.MIN_VALUE;
+
+		for (int i = 0; i < count; i++) {
+			game_state.make_move(player, tiles[i]);
+			margin = Math.max(margin, -get_exact_margin(game, game_state, opponent));
+			game_state.unmake_move();
+		}
+
+		return margin;
+	}
+
+	/**
+	 * Creates a temporary file, deleted when the tests end.
+	 *
+	 * @param suffix The suffix of the name of the file.
+	 * @return the path of the file.
+	 */
+	private static Path create_temporary_file(String suffix) {
+		try {
+			Path file = Files.createTempFile("search_test", suffix);
+
+			file.toFile().deleteOnExit();
+
+			return file;
+		} catch (IOException exception) {
+			throw new UncheckedIOException("Error: the temporary file could not be created", exception);
+		}
+	}
+
+	/**
+	 * Returns the hash of the canonical form of a game state, with the colours
+	 * allowed to be swapped.
+	 *
+	 * @param game_state A game state.
+	 * @return the hash shared by the game state and its symmetric images.
+	 */
+	private static long get_canonical_hash(GameState game_state) {
+		return CanonicalForm.of(game_state, true).get_game_state().get_hash();
+	}
+
+	/**
+	 * Builds an engine that deepens iteratively with the given budget, or
+	 * searches to the depth of the difficulty without one.
+	 *
+	 * @param game   The game.
+	 * @param player The player of the engine.
+	 * @param table  The transposition table, or null for none.
+	 * @param budget The time budget of a move in milliseconds, or 0.
+	 * @return the engine.
+	 */
+	private static Minimax build_engine(Game game, Player player, TranspositionTable table, long budget) {
+		Minimax minimax = new Minimax(new Heuristic1(player, game), game, player);
+
+		minimax.set_move_ordering(true);
+		minimax.set_transposition_table(table);
+		minimax.set_time_budget(budget);
+
+		return minimax;
+	}
+
+	/**
+	 * Checks that the entries of a shallow search in the transposition table
+	 * do not end iterative deepening before the game tree is solved: the
+	 * result must match that of an engine without a table.
+	 */
+	private void test_iterative_deepening_with_table() {
+		Game game = new Game(Difficulty.MEDIUM, 8, 8);
+
+		for (long seed = 0; seed < 10; seed++) {
+			GameState game_state = build_late_position(game, seed, 24);
+			Player player = Player.GREEN;
+
+			while (!game.is_game_finished(game_state)) {
+				Minimax engine = build_engine(game, player, new TranspositionTable(16), SOLVE_BUDGET);
+				Minimax fresh_engine = build_engine(game, player, null, SOLVE_BUDGET);
+				long start = System.nanoTime();
+
+				engine.set_time_budget(0);
+				engine.set_max_depth(SHALLOW_DEPTH);
+				engine.run(game_state);
+				engine.set_time_budget(SOLVE_BUDGET);
+				engine.run(game_state);
+
+				Coordinate move = fresh_engine.run(game_state);
+
+				check((System.nanoTime() - start) / 1_000_000 < SOLVE_BUDGET, "seed " + seed + ": the searches " +
+						"ran out of time");
+				check((engine.get_completed_depth() > SHALLOW_DEPTH ||
+						fresh_engine.get_completed_depth() <= SHALLOW_DEPTH) &&
+						engine.get_score() == fresh_engine.get_score(), "seed " + seed + ": the engine with a " +
+						"table stopped at depth " + engine.get_completed_depth() + " with the score " +
+						engine.get_score() + ", the one without at depth " + fresh_engine.get_completed_depth() +
+						" with " + fresh_engine.get_score());
+
+				game_state = game.play(player, move, game_state);
+				player = player == Player.GREEN ? Player.RED : Player.GREEN;
+			}
+		}
+	}
+
+	/**
+	 * Checks that the table entries of the helper threads of a lazy SMP
+	 * search do not stop its iterative deepening before the fixed depth.
+	 */
+	private void test_lazy_smp_depth() {
+		Game game = new Game(Difficulty.MEDIUM, 8, 8);
+
+		for (long seed = 0; seed < 20; seed++) {
+			GameState game_state = build_late_position(game, seed, 40);
+
+			if (game.get_available_tiles(game_state.get_square(Player.GREEN), game_state, new int[8]) == 0)
+				continue; // The search only passes
+
+			Minimax minimax = build_engine(game, Player.GREEN, new TranspositionTable(16), 0);
+
+			minimax.set_max_depth(FIXED_DEPTH);
+			minimax.set_threads(3);
+			minimax.set_parallelism(Parallelism.LAZY_SMP);
+			minimax.run(game_state);
+			minimax.set_threads(1); // Shuts the pool down
+
+			check(minimax.get_completed_depth() == FIXED_DEPTH, "seed " + seed + ": the lazy SMP search stopped at " +
+					"depth " + minimax.get_completed_depth() + " instead of " + FIXED_DEPTH);
+		}
+	}
+
+	/**
+	 * Checks that the opening book of the game window covers the first two
+	 * decisions of the machine, which always moves first: the starting
+	 * position, and every position after its book move and any reply of the
+	 * human.
+	 */
+	private void test_opening_book_replies() {
+		Game game = new Game(Difficulty.HARD, 8, 8);
+		OpeningBook opening_book = OpeningBook.load(game.get_board(), OPENING_BOOK);
+		int[] tiles = new int[8];
+
+		for (long seed = 0; seed < 20; seed++)
+			for (Player machine : Player.values()) {
+				Player human = machine == Player.GREEN ? Player.RED : Player.GREEN;
+				GameState game_state = game.build_initial_game_state(seed);
+				Coordinate move = opening_book.probe(game_state, machine);
+
+				check(move != null, "seed " + seed + ": the book does not have the starting position");
+
+				if (move == null)
+					continue;
+
+				game_state = game.play(machine, move, game_state);
+
+				int count = game.get_available_tiles(game_state.get_square(human), game_state, tiles);
+
+				for (int i = 0; i < count; i++) {
+					GameState reply_state = game_state.copy();
+
+					reply_state.make_move(human, tiles[i]);
+
+					if (game.get_available_tiles(reply_state.get_square(machine), reply_state, new int[8]) > 0)
+						check(opening_book.probe(reply_state, machine) != null, "seed " + seed + ": the book does " +
+								"not have the reply " + game.get_board().get_coordinate(tiles[i]) + " of the " + human +
+								" Yoshi");
+				}
+			}
+	}
+
+	/**
+	 * Checks that an engine on a short game clock never runs out of time,
+	 * and still plays a move whenever it has one, even when its budget is too
+	 * small to complete the first iteration.
+	 */
+	private void test_short_clock() {
+		Game game = new Game(Difficulty.HARD, 8, 8);
+		int[] tiles = new int[8];
+
+		for (long seed = 0; seed < 20; seed++) {
+			GameState game_state = game.build_initial_game_state(seed);
+			Minimax[] engines = new Minimax[2];
+			TimeManager[] time_managers = new TimeManager[2];
+			Player player = Player.RED;
+
+			for (Player side : Player.values()) {
+				engines[side.ordinal()] = build_engine(game, side, null, 0);
+				time_managers[side.ordinal()] = new TimeManager(SHORT_CLOCK, 0);
+				engines[side.ordinal()].set_time_manager(time_managers[side.ordinal()]);
+			}
+
+			while (!game.is_game_finished(game_state)) {
+				int count = game.get_available_tiles(game_state.get_square(player), game_state, tiles);
+				Coordinate move = engines[player.ordinal()].run(game_state);
+
+				check(count == 0 || move != null, "seed " + seed + ": the " + player + " Yoshi did not move");
+
+				if (move != null)
+					game_state = game.play(player, move, game_state);
+
+				player = player == Player.GREEN ? Player.RED : Player.GREEN;
+			}
+
+			for (Player side : Player.values())
+				check(!time_managers[side.ordinal()].is_flagged(), "seed " + seed + ": the " + side + " Yoshi ran " +
+						"out of time, " + time_managers[side.ordinal()].get_remaining_time() + " ms left");
+		}
+	}
+
+	/**
+	 * Checks that a tablebase of a small board gives the exact margin of every
+	 * position of random games, the finished ones included.
+	 */
+	private void test_tablebase() {
+		Game game = new Game(Difficulty.HARD, 4, 4);
+		int[] tiles = new int[8];
+		Path file = create_temporary_file(".tb");
+
+		Tablebase.generate(game, file);
+
+		Tablebase tablebase = Tablebase.load(game.get_board(), file);
+
+		for (long seed = 0; seed < 20; seed++) {
+			Random random = new Random(seed);
+			GameState game_state = game.build_initial_game_state(seed);
+			Player player = Player.RED;
+
+			while (true) {
+				int margin = get_exact_margin(game, game_state, player);
+
+				check(tablebase.probe(game_state, player) == margin, "seed " + seed + ": the tablebase does not " +
+						"give the " + player + " Yoshi a margin of " + margin + " with " +
+						game_state.get_tile_count(null) + " free tiles");
+
+				if (game.is_game_finished(game_state))
+					break;
+
+				int count = game.get_available_tiles(game_state.get_square(player), game_state, tiles);
+
+				if (count > 0)
+					game_state.make_move(player, tiles[random.nextInt(count)]);
+
+				player = player == Player.GREEN ? Player.RED : Player.GREEN;
+			}
+		}
+	}
+
+	/**
+	 * Checks that a book of a two-move opening has every position of the
+	 * opening and none after it, and that every symmetric image of a
+	 * position, with or without the colours swapped, gets a symmetric move:
+	 * one that leads to the same position up to symmetry.
+	 */
+	private void test_opening_book_lookups() {
+		Game game = new Game(Difficulty.HARD, 5, 6);
+		Board board = game.get_board();
+		Path file = create_temporary_file(".bin");
+		int[] tiles = new int[8];
+
+		OpeningBook.generate(game, SHALLOW_DEPTH, 2, file);
+
+		OpeningBook opening_book = OpeningBook.load(board, file);
+
+		for (long seed = 0; seed < 20; seed++) {
+			Random random = new Random(seed);
+			GameState game_state = game.build_initial_game_state(seed);
+			Player player = seed % 2 == 0 ? Player.GREEN : Player.RED;
+
+			for (int ply = 0; ply < 3; ply++) {
+				int count = game.get_available_tiles(game_state.get_square(player), game_state, tiles);
+
+				if (count == 0)
+					break;
+
+				Coordinate move = opening_book.probe(game_state, player);
+
+				check((move != null) == (ply < 2), "seed " + seed + ": the book " + (ply < 2 ? "does not have" :
+						"has") + " the position after " + ply + " moves");
+
+				if (move == null)
+					break;
+
+				long canonical_hash = get_canonical_hash(game.play(player, move, game_state));
+
+				for (int symmetry = 0; symmetry < board.get_symmetry_count(); symmetry++)
+					for (boolean swap_colours : new boolean[] { false, true }) {
+						GameState symmetric_state = game_state.transform(symmetry, swap_colours);
+						Player symmetric_player = swap_colours ? (player == Player.GREEN ? Player.RED : Player.GREEN) :
+								player;
+						Coordinate symmetric_move = opening_book.probe(symmetric_state, symmetric_player);
+
+						check(symmetric_move != null && get_canonical_hash(game.play(symmetric_player, symmetric_move,
+								symmetric_state)) == canonical_hash, "seed " + seed + ": the symmetry " + symmetry +
+								(swap_colours ? " with the colours swapped" : "") + " of the position after " + ply +
+								" moves gets another move");
+					}
+
+				game_state.make_move(player, tiles[random.nextInt(count)]);
+				player = player == Player.GREEN ? Player.RED : Player.GREEN;
+			}
+		}
+	}
+
+	/**
+	 * Checks that the proof-number search finds the result of an exhaustive
+	 * search for every position of random games on small boards, with the
+	 * same hash table kept from one position to the next.
+	 */
+	private void test_proof_number_search() {
+		for (int[] size : new int[][] { { 4, 4 }, { 4, 5 } }) {
+			Game game = new Game(Difficulty.HARD, size[0], size[1]);
+			ProofNumberSearch proof_number_search = new ProofNumberSearch(game, 16);
+			int[] tiles = new int[8];
+
+			for (long seed = 0; seed < 10; seed++) {
+				Random random = new Random(seed);
+				GameState game_state = game.build_initial_game_state(seed);
+				Player player = Player.RED;
+
+				while (!game.is_game_finished(game_state)) {
+					int margin = get_exact_margin(game, game_state, player);
+					Result result = margin > 0 ? Result.WIN : margin == 0 ? Result.TIE : Result.LOSS;
+
+					check(proof_number_search.solve(game_state, player) == result, size[0] + "x" + size[1] +
+							" seed " + seed + ": the proof-number search does not find a " + result + " for the " +
+							player + " Yoshi with " + game_state.get_tile_count(null) + " free tiles");
+
+					int count = game.get_available_tiles(game_state.get_square(player), game_state, tiles);
+
+					if (count > 0)
+						game_state.make_move(player, tiles[random.nextInt(count)]);
+
+					player = player == Player.GREEN ? Player.RED : Player.GREEN;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that every heuristic scores the children of a node in a batch
+	 * exactly as it scores them one at a time, for both players, on every
+	 * position of random games.
+	 */
+	private void test_batch_scores() {
+		Game game = new Game(Difficulty.HARD, 8, 8);
+		Frontier frontier = new Frontier(game.get_board(), 8);
+		float[] scores = new float[8];
+		int[] tiles = new int[8];
+
+		for (long seed = 0; seed < 20; seed++) {
+			Random random = new Random(seed);
+			GameState game_state = game.build_initial_game_state(seed);
+			Player player = Player.RED;
+
+			while (!game.is_game_finished(game_state)) {
+				int count = game.get_available_tiles(game_state.get_square(player), game_state, tiles);
+
+				frontier.clear();
+
+				for (int i = 0; i < count; i++) {
+					game_state.make_move(player, tiles[i]);
+					frontier.add(game_state);
+					game_state.unmake_move();
+				}
+
+				for (Player side : Player.values())
+					for (Heuristic heuristic : new Heuristic[] { new Heuristic1(side, game), new Heuristic2(side, game),
+							new Heuristic3(side, game) }) {
+						heuristic.get_scores(frontier, scores);
+
+						for (int i = 0; i < count; i++) {
+							game_state.make_move(player, tiles[i]);
+
+							check(scores[i] == heuristic.get_score(game_state), "seed " + seed + ": " +
+									heuristic.getClass().getSimpleName() + " scores the move " + tiles[i] + " of " +
+									"the " + player + " Yoshi differently in a batch");
+
+							game_state.unmake_move();
+						}
+					}
+
+				if (count > 0)
+					game_state.make_move(player, tiles[random.nextInt(count)]);
+
+				player = player == Player.GREEN ? Player.RED : Player.GREEN;
+			}
+		}
+	}
+
+	/**
+	 * Runs every test and exits with status 1 if any check failed.
+	 *
+	 * @param args Not used.
+	 */
+	public static void main(String[] args) {
+		SearchTest test = new SearchTest();
+
+		test.test_iterative_deepening_with_table();
+		test.test_lazy_smp_depth();
+		test.test_opening_book_replies();
+		test.test_opening_book_lookups();
+		test.test_short_clock();
+		test.test_tablebase();
+		test.test_proof_number_search();
+		test.test_batch_scores();
+
+		System.out.println(test.checks + " checks, " + test.failures + " failed");
+		System.exit(test.failures == 0 ? 0 : 1); // The pools of the parallel searches keep their threads
+	}
+}
@@ -10,6 +10,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 import javax.swing.BorderFactory;
@@ -26,6 +28,7 @@ import src.classes.Coordinate;
 import src.classes.Game;
 import src.classes.ImageCollection;
 import src.classes.Minimax;
+import src.classes.OpeningBook;
 import src.classes.Game.Difficulty;
 import src.classes.GameState.Player;
 import src.classes.heuristic.Heuristic1;
@@ -61,6 +64,12 @@ public class GameWindow extends JFrame implements ActionListener {
 
 		game = new Game(difficulty, rows, columns);
 		minimax = new Minimax(new Heuristic1(machine, game), game, machine);
+
+		Path opening_book = Path.of("./src/assets/opening_book_" + rows + "x" + columns + ".bin");
+
+		if (difficulty == Difficulty.HARD && Files.exists(opening_book)) // The easier difficulties keep their weaker openings
+			minimax.set_opening_book(OpeningBook.load(game.get_board(), opening_book));
+
 		game_state = game.build_initial_game_state();
 		game_state = game.play(machine, minimax.run(game_state), game_state); // The first move is made by the
 																			// machine
@@ -201,8 +210,8 @@ public class GameWindow extends JFrame implements ActionListener {
 
 		update_grid();
 
-		player_tiles_counter.setText("Player tiles: " + game_state.get_tiles(human).size());
-		machine_tiles_counter.setText("Machine tiles: " + game_state.get_tiles(machine).size());
+		player_tiles_counter.setText("Player tiles: " + game_state.get_tile_count(human));
+		machine_tiles_counter.setText("Machine tiles: " + game_state.get_tile_count(machine));
 
 		if (game.is_game_finished(game_state))
 			display_game_information();
@@ -230,10 +239,10 @@ public class GameWindow extends JFrame implements ActionListener {
 		JLabel difficulty_label = new JLabel("Difficulty: " + string_difficulty);
 		difficulty_label.setAlignmentX(Component.CENTER_ALIGNMENT);
 
-		JLabel player_tiles_label = new JLabel("Player tiles: " + game_state.get_tiles(human).size());
+		JLabel player_tiles_label = new JLabel("Player tiles: " + game_state.get_tile_count(human));
 		player_tiles_label.setAlignmentX(Component.CENTER_ALIGNMENT);
 
-		JLabel machine_tiles_label = new JLabel("Machine tiles: " + game_state.get_tiles(machine).size());
+		JLabel machine_tiles_label = new JLabel("Machine tiles: " + game_state.get_tile_count(machine));
 		machine_tiles_label.setAlignmentX(Component.CENTER_ALIGNMENT);
 
 		Player winner = game.get_winner(game_state);